@@ -0,0 +1,145 @@
+// Libraries used
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.RecursiveAction;
+
+// represents the structural measurements of a maze that tell how hard it is,
+// all taken in O(n) by two breadth first searches and one pass over the
+// cells. The first search, from cell 0, gives the solution length and the
+// cell farthest from cell 0; the second, from that cell, gives the diameter,
+// which is exact for a perfect maze and a lower bound for one with loops
+class MazeAnalytics {
+  // the number of cells
+  int size;
+  // the most steps between two cells, and two cells that far apart
+  int diameter;
+  int diameterStart;
+  int diameterEnd;
+  // the number of cells with one open neighbor, and with three or more
+  int deadEnds;
+  int junctions;
+  // the number of steps from cell 0 to the last cell, or -1 if there is no way
+  int solutionLength;
+  // the average number of cells walked from a dead end before reaching a
+  // junction: high for long winding passages, low for many short spurs
+  double riverFactor;
+
+  // Constructor: measures the maze
+  MazeAnalytics(IMazeGraph maze) {
+    this.size = maze.size();
+    int[] neighbors = new int[maze.maxDegree()];
+    byte[] degree = new byte[this.size];
+    for (int i = 0; i < this.size; i++) {
+      degree[i] = (byte) maze.openNeighbors(i, neighbors);
+      if (degree[i] == 1) {
+        this.deadEnds++;
+      }
+      else if (degree[i] >= 3) {
+        this.junctions++;
+      }
+    }
+
+    int[] distance = new int[this.size];
+    int[] queue = new int[this.size];
+    this.diameterStart = this.farthest(maze, 0, distance, queue, neighbors);
+    this.solutionLength = distance[this.size - 1];
+    this.diameterEnd = this.farthest(maze, this.diameterStart, distance, queue, neighbors);
+    this.diameter = distance[this.diameterEnd];
+
+    long walked = 0;
+    for (int i = 0; i < this.size; i++) {
+      if (degree[i] == 1) {
+        walked += this.spur(maze, i, degree, neighbors);
+      }
+    }
+    this.riverFactor = this.deadEnds == 0 ? 0 : (double) walked / this.deadEnds;
+  }
+
+  // the last cell a breadth first search from from reaches, which is as far
+  // from from as any cell
+  // EFFECT: fills distance with the steps from from to every cell, or -1
+  int farthest(IMazeGraph maze, int from, int[] distance, int[] queue, int[] neighbors) {
+    Arrays.fill(distance, -1);
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = from;
+    distance[from] = 0;
+    while (head < tail) {
+      int cell = queue[head++];
+      int count = maze.openNeighbors(cell, neighbors);
+      for (int k = 0; k < count; k++) {
+        if (distance[neighbors[k]] == -1) {
+          distance[neighbors[k]] = distance[cell] + 1;
+          queue[tail++] = neighbors[k];
+        }
+      }
+    }
+    return queue[tail - 1];
+  }
+
+  // the number of cells on the passage from the given dead end up to, but not
+  // including, the first junction; a passage with no junction ends at the
+  // dead end on its other side
+  int spur(IMazeGraph maze, int deadEnd, byte[] degree, int[] neighbors) {
+    int length = 0;
+    int previous = -1;
+    int cell = deadEnd;
+    while (cell != -1 && degree[cell] < 3) {
+      length++;
+      int next = -1;
+      int count = maze.openNeighbors(cell, neighbors);
+      for (int k = 0; k < count; k++) {
+        if (neighbors[k] != previous) {
+          next = neighbors[k];
+        }
+      }
+      previous = cell;
+      cell = next;
+    }
+    return length;
+  }
+
+  // the measurements as the end of a line of a CSV
+  String csv() {
+    return this.diameter + "," + this.deadEnds + "," + this.junctions + ","
+        + this.solutionLength + "," + String.format(Locale.ROOT, "%.3f", this.riverFactor);
+  }
+}
+
+// represents the measurement of the mazes from first up to but not including
+// last, split in half until each piece is at most GRAIN mazes, so a corpus of
+// mazes is measured on every core of a fork-join pool
+class AnalyzeMazes extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  // the most mazes a piece measures without splitting
+  static final int GRAIN = 64;
+
+  // the mazes, and where their measurements go
+  IMazeGraph[] mazes;
+  MazeAnalytics[] results;
+  int first;
+  int last;
+
+  // Constructor
+  AnalyzeMazes(IMazeGraph[] mazes, MazeAnalytics[] results, int first, int last) {
+    this.mazes = mazes;
+    this.results = results;
+    this.first = first;
+    this.last = last;
+  }
+
+  // EFFECT: measures this piece's mazes into results
+  protected void compute() {
+    if (this.last - this.first > AnalyzeMazes.GRAIN) {
+      int mid = (this.first + this.last) / 2;
+      AnalyzeMazes.invokeAll(new AnalyzeMazes(this.mazes, this.results, this.first, mid),
+          new AnalyzeMazes(this.mazes, this.results, mid, this.last));
+      return;
+    }
+
+    for (int k = this.first; k < this.last; k++) {
+      this.results[k] = new MazeAnalytics(this.mazes[k]);
+    }
+  }
+}
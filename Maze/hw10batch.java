@@ -0,0 +1,220 @@
+// Libraries used
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// represents a headless run that generates and solves many mazes at once,
+// saving every maze as a maze file and, in a CSV, the time each step took
+// along with the maze's measurements.
+// Run it with options, all optional:
+//   java MazeBatch --count 100 --width 1000 --height 1000 --seed 1
+//       --generator parallel --solver astar --threads 4 --out corpus
+// Maze k is made from seed + k, so any maze in a corpus can be made again
+class MazeBatch {
+  // the generators and solvers by name, in the order of their ids: generators
+  // as in MazeFile, solvers as in Maze.searchAlgo, starting from 1
+  static final List<String> GENERATORS = Arrays.asList("kruskal", "parallel", "eller");
+  static final List<String> SOLVERS = Arrays.asList("dfs", "bfs", "astar", "bidirectional");
+  // the first line of the CSV
+  static final String CSV_HEADER = "seed,generator,width,height,generate_ms,solve_ms,write_ms,"
+      + "expanded,path_length,file,diameter,dead_ends,junctions,solution_length,river_factor";
+  static final String USAGE = "usage: java MazeBatch [--count N] [--width W] [--height H] "
+      + "[--seed S] [--generator kruskal|parallel|eller] "
+      + "[--solver dfs|bfs|astar|bidirectional] [--threads T] [--out DIR]";
+
+  // how many mazes to make, and their size
+  int count;
+  int width;
+  int height;
+  // the seed of the first maze
+  long seed;
+  // the MazeFile id of the generator, and the searchAlgo of the solver
+  int generator;
+  int solver;
+  // how many mazes are made at a time
+  int threads;
+  // the directory the files go in
+  Path out;
+
+  // Constructor: reads the options, starting from 10 solved 100 x 100 Kruskal
+  // mazes in the current directory
+  MazeBatch(String[] args) {
+    this.count = 10;
+    this.width = 100;
+    this.height = 100;
+    this.seed = 0;
+    this.generator = MazeFile.KRUSKAL;
+    this.solver = 2;
+    this.threads = Runtime.getRuntime().availableProcessors();
+    this.out = Paths.get(".");
+
+    if (args.length % 2 != 0) {
+      throw new IllegalArgumentException("Every option needs a value");
+    }
+    for (int k = 0; k < args.length; k += 2) {
+      String value = args[k + 1];
+      if (args[k].equals("--count")) {
+        this.count = this.positive(args[k], value);
+      }
+      else if (args[k].equals("--width")) {
+        this.width = this.positive(args[k], value);
+      }
+      else if (args[k].equals("--height")) {
+        this.height = this.positive(args[k], value);
+      }
+      else if (args[k].equals("--seed")) {
+        this.seed = Long.parseLong(value);
+      }
+      else if (args[k].equals("--generator")) {
+        this.generator = this.choice(args[k], value, MazeBatch.GENERATORS);
+      }
+      else if (args[k].equals("--solver")) {
+        this.solver = this.choice(args[k], value, MazeBatch.SOLVERS) + 1;
+      }
+      else if (args[k].equals("--threads")) {
+        this.threads = this.positive(args[k], value);
+      }
+      else if (args[k].equals("--out")) {
+        this.out = Paths.get(value);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option: " + args[k]);
+      }
+    }
+  }
+
+  // the value of an option that must be a positive number
+  int positive(String option, String value) {
+    int result = Integer.parseInt(value);
+    if (result < 1) {
+      throw new IllegalArgumentException(option + " must be positive");
+    }
+    return result;
+  }
+
+  // the index of the value of an option that must be one of the choices
+  int choice(String option, String value, List<String> choices) {
+    int result = choices.indexOf(value);
+    if (result == -1) {
+      throw new IllegalArgumentException(option + " must be one of " + choices);
+    }
+    return result;
+  }
+
+  // EFFECT: makes, solves and saves every maze, threads of them at a time on a
+  // pool of threads, then writes timings.csv with a line for each in seed order
+  void run() throws IOException {
+    Files.createDirectories(this.out);
+    ArrayList<Callable<String>> jobs = new ArrayList<Callable<String>>();
+    for (int k = 0; k < this.count; k++) {
+      jobs.add(new BatchJob(this, this.seed + k));
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(this.threads);
+    try (BufferedWriter csv = Files.newBufferedWriter(this.out.resolve("timings.csv"))) {
+      csv.write(MazeBatch.CSV_HEADER);
+      csv.newLine();
+      for (Future<String> line : pool.invokeAll(jobs)) {
+        csv.write(line.get());
+        csv.newLine();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while making mazes", e);
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  // makes, solves, saves and measures the maze from the given seed, returning
+  // its line of the CSV
+  String runJob(long jobSeed) throws IOException {
+    long start = System.nanoTime();
+    CompactMaze maze = new ArrayUtils().generate(this.width, this.height, jobSeed,
+        this.generator);
+    long generated = System.nanoTime();
+    ASearch search = this.newSearch(maze).untracked();
+    search.run();
+    int[] path = search.path();
+    long solved = System.nanoTime();
+    Path file = this.out.resolve("maze-" + jobSeed + ".bin");
+    new MazeFile().write(maze, jobSeed, this.generator, file);
+    long written = System.nanoTime();
+
+    return jobSeed + "," + MazeBatch.GENERATORS.get(this.generator) + "," + this.width + ","
+        + this.height + "," + this.millis(generated - start) + ","
+        + this.millis(solved - generated) + "," + this.millis(written - solved) + ","
+        + search.expanded + "," + path.length + "," + file.getFileName() + ","
+        + new MazeAnalytics(maze).csv();
+  }
+
+  // the solver's search from the top left to the bottom right of the maze
+  ASearch newSearch(CompactMaze maze) {
+    if (this.solver == 3) {
+      return new AStarSearch(maze, 0, maze.size() - 1);
+    }
+    else if (this.solver == 4) {
+      return new BidirectionalSearch(maze, 0, maze.size() - 1);
+    }
+    else {
+      return new MazeSearch(maze, 0, maze.size() - 1, this.solver == 1);
+    }
+  }
+
+  // the given nanoseconds as milliseconds, to 3 places
+  String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  // EFFECT: runs the batch the arguments describe, or prints what went wrong
+  public static void main(String[] args) {
+    try {
+      new MazeBatch(args).run();
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(MazeBatch.USAGE);
+      System.exit(2);
+    }
+    catch (IOException e) {
+      System.err.println("Could not write the mazes: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+}
+
+// represents one maze of a batch, to be made on the batch's pool
+class BatchJob implements Callable<String> {
+  // the batch the maze belongs to, and its seed
+  MazeBatch batch;
+  long seed;
+
+  // Constructor
+  BatchJob(MazeBatch batch, long seed) {
+    this.batch = batch;
+    this.seed = seed;
+  }
+
+  // makes, solves, saves and measures the maze, returning its line of the CSV
+  public String call() throws IOException {
+    return this.batch.runJob(this.seed);
+  }
+}
@@ -0,0 +1,462 @@
+// Libraries used
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+// represents one thing to measure on boards of every size. A benchmark is set
+// up once per size, prepared again before every timed run so each run starts
+// from the same state, and only the run itself is timed and counted against
+// the allocations
+abstract class ABenchmark {
+  // the name the benchmark is reported under
+  String name;
+  // the most cells a board can have for this benchmark, so boards of Cell
+  // objects stay within the heap
+  long maxCells;
+
+  // Constructor
+  ABenchmark(String name, long maxCells) {
+    this.name = name;
+    this.maxCells = maxCells;
+  }
+
+  // EFFECT: builds whatever every run on a width x height board needs
+  abstract void setUp(int width, int height);
+
+  // EFFECT: puts back whatever the last run changed
+  void prepare() {
+    // most runs change nothing they read
+  }
+
+  // does the work being measured, returning something that depends on it so
+  // it cannot be skipped
+  abstract Object run();
+}
+
+// measures ArrayUtils.generateBoard
+class GenerateBoardBenchmark extends ABenchmark {
+  int width;
+  int height;
+
+  // Constructor
+  GenerateBoardBenchmark() {
+    super("generateBoard", MazeBenchmark.CELL_LIMIT);
+  }
+
+  // EFFECT: remembers the size
+  void setUp(int width, int height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  // makes a board of Cells
+  Object run() {
+    return new ArrayUtils().generateBoard(this.width, this.height);
+  }
+}
+
+// measures ArrayUtils.connectBoard on a board of Cells
+class ConnectBoardBenchmark extends ABenchmark {
+  int width;
+  int height;
+  ArrayList<Cell> board;
+
+  // Constructor
+  ConnectBoardBenchmark() {
+    super("connectBoard", MazeBenchmark.CELL_LIMIT);
+  }
+
+  // EFFECT: makes the board to connect
+  void setUp(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.board = new ArrayUtils().generateBoard(width, height);
+  }
+
+  // connects the board with fresh edges
+  Object run() {
+    return new ArrayUtils().connectBoard(this.board, this.width, this.height, 1L);
+  }
+}
+
+// measures ArrayUtils.sort on the edges connectBoard makes
+class SortBenchmark extends ABenchmark {
+  ArrayList<Edge> unsorted;
+  ArrayList<Edge> edges;
+
+  // Constructor
+  SortBenchmark() {
+    super("sort", MazeBenchmark.CELL_LIMIT);
+  }
+
+  // EFFECT: makes the edges to sort
+  void setUp(int width, int height) {
+    ArrayUtils util = new ArrayUtils();
+    this.unsorted = util.connectBoard(util.generateBoard(width, height), width, height, 1L);
+  }
+
+  // EFFECT: copies the unsorted edges to sort again
+  void prepare() {
+    this.edges = new ArrayList<Edge>(this.unsorted);
+  }
+
+  // sorts the edges
+  Object run() {
+    return new ArrayUtils().sort(this.edges, 0, this.edges.size() - 1);
+  }
+}
+
+// measures Kruskal's algorithm on a board of Cells
+class KruskalBenchmark extends ABenchmark {
+  ArrayList<Edge> sorted;
+
+  // Constructor
+  KruskalBenchmark() {
+    super("kruskal", MazeBenchmark.CELL_LIMIT);
+  }
+
+  // EFFECT: makes the sorted edges
+  void setUp(int width, int height) {
+    ArrayUtils util = new ArrayUtils();
+    ArrayList<Edge> edges = util.connectBoard(util.generateBoard(width, height), width, height,
+        1L);
+    this.sorted = util.sort(edges, 0, edges.size() - 1);
+  }
+
+  // EFFECT: stands every edge back up
+  void prepare() {
+    for (Edge e : this.sorted) {
+      e.solid = true;
+    }
+  }
+
+  // knocks down a spanning tree of edges
+  Object run() {
+    new ArrayUtils().kruskal(this.sorted);
+    return this.sorted;
+  }
+}
+
+// measures Kruskal's algorithm on a compact maze
+class CompactKruskalBenchmark extends ABenchmark {
+  CompactMaze maze;
+
+  // Constructor
+  CompactKruskalBenchmark() {
+    super("kruskal (compact)", Long.MAX_VALUE);
+  }
+
+  // EFFECT: makes the weighted maze
+  void setUp(int width, int height) {
+    this.maze = new ArrayUtils().connectBoard(width, height, 1L);
+  }
+
+  // EFFECT: stands every wall back up
+  void prepare() {
+    Arrays.fill(this.maze.walls, -1L);
+  }
+
+  // knocks down a spanning tree of walls
+  Object run() {
+    new ArrayUtils().kruskal(this.maze);
+    return this.maze;
+  }
+}
+
+// measures ArrayUtils.dfs or ArrayUtils.depthFirstSearch on a finished board
+// of Cells
+class CellSearchBenchmark extends ABenchmark {
+  // true for dfs, false for depthFirstSearch
+  boolean listing;
+  ArrayList<Cell> board;
+
+  // Constructor
+  CellSearchBenchmark(boolean listing) {
+    super(listing ? "dfs" : "depthFirstSearch", MazeBenchmark.CELL_LIMIT);
+    this.listing = listing;
+  }
+
+  // EFFECT: makes a finished maze of Cells
+  void setUp(int width, int height) {
+    this.board = new MazeBenchmark().cellMaze(width, height);
+  }
+
+  // searches from the first cell to the last
+  Object run() {
+    if (this.listing) {
+      return new ArrayUtils().dfs(this.board);
+    }
+    return new ArrayUtils().depthFirstSearch(this.board.get(0),
+        this.board.get(this.board.size() - 1));
+  }
+}
+
+// measures a whole search run by Maze.onTick, painting the Maze's Cells
+class OnTickBenchmark extends ABenchmark {
+  // the key that picks the search
+  String key;
+  Maze game;
+
+  // Constructor
+  OnTickBenchmark(String key) {
+    super("onTick " + (key.equals("b") ? "bfs" : "dfs"), MazeBenchmark.CELL_LIMIT);
+    this.key = key;
+  }
+
+  // EFFECT: makes a Maze of a finished board that solves it in one tick
+  void setUp(int width, int height) {
+    ArrayList<Cell> board = new MazeBenchmark().cellMaze(width, height);
+    this.game = new Maze(board, new ArrayList<Edge>(), width, height);
+    this.game.cellsPerTick = width * height;
+  }
+
+  // EFFECT: throws away the last search and uncolors its cells
+  void prepare() {
+    this.game.onKeyEvent(this.key);
+  }
+
+  // runs the search from start to finish
+  Object run() {
+    this.game.onTick();
+    return this.game.solution;
+  }
+}
+
+// represents what one benchmark measured on one size of board
+class BenchmarkResult {
+  // the benchmark and the board's width and height
+  String name;
+  int width;
+  int height;
+  // the number of timed runs, and their total time and allocations
+  long ops;
+  long nanos;
+  long bytes;
+
+  // Constructor
+  BenchmarkResult(String name, int width, int height, long ops, long nanos, long bytes) {
+    this.name = name;
+    this.width = width;
+    this.height = height;
+    this.ops = ops;
+    this.nanos = nanos;
+    this.bytes = bytes;
+  }
+
+  // runs per second
+  double opsPerSecond() {
+    return this.ops * 1e9 / this.nanos;
+  }
+
+  // bytes allocated per run, or -1 if the JVM cannot count them
+  double bytesPerOp() {
+    return this.bytes < 0 ? -1 : (double) this.bytes / this.ops;
+  }
+
+  // megabytes allocated per second, or -1 if the JVM cannot count them
+  double allocationRate() {
+    return this.bytes < 0 ? -1 : this.bytes * 1e9 / this.nanos / (1 << 20);
+  }
+
+  // the benchmark and size, which identify this result in a baseline
+  String key() {
+    return this.name + "," + this.width + "x" + this.height;
+  }
+
+  // this result as a line of the CSV
+  String csv() {
+    return String.format(Locale.ROOT, "%s,%.3f,%.1f,%.1f", this.key(), this.opsPerSecond(),
+        this.bytesPerOp(), this.allocationRate());
+  }
+}
+
+// represents a benchmark harness for maze generation and solving: every
+// benchmark is warmed up and then timed on square boards of every size,
+// counting the bytes each run allocates on its thread. Run it with options:
+//   java MazeBenchmark --sizes 10,100,1000,4000 --time 2000
+//       --out results.csv --baseline before.csv
+// and it prints each result as throughput and allocation, along with the
+// change in throughput from the baseline, a CSV an earlier run wrote
+class MazeBenchmark {
+  // boards of Cells bigger than this are skipped, since a 4000 x 4000 board
+  // of Cells does not fit a default heap
+  static final long CELL_LIMIT = 1000 * 1000;
+  // the first line of the CSV
+  static final String CSV_HEADER = "benchmark,size,ops_per_s,bytes_per_op,alloc_mb_per_s";
+  static final String USAGE = "usage: java MazeBenchmark [--sizes N,N,...] [--time MS] "
+      + "[--out FILE] [--baseline FILE]";
+
+  // the side lengths of the boards
+  int[] sizes;
+  // how long to warm up, and then to time, each benchmark on each size
+  long millis;
+  // where the CSV goes, and the CSV of an earlier run to compare with, or null
+  Path out;
+  Path baseline;
+  // what the last run returned, kept so no run can be optimized away
+  Object sink;
+
+  // Constructor with the sizes 10 to 4000 and 2 seconds a phase
+  MazeBenchmark() {
+    this.sizes = new int[] { 10, 100, 1000, 4000 };
+    this.millis = 2000;
+    this.out = Paths.get("benchmark.csv");
+    this.baseline = null;
+  }
+
+  // Constructor: reads the options, starting from the defaults
+  MazeBenchmark(String[] args) {
+    this();
+    if (args.length % 2 != 0) {
+      throw new IllegalArgumentException("Every option needs a value");
+    }
+    for (int k = 0; k < args.length; k += 2) {
+      String value = args[k + 1];
+      if (args[k].equals("--sizes")) {
+        this.sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+        if (Arrays.stream(this.sizes).anyMatch(size -> size < 1)) {
+          throw new IllegalArgumentException("--sizes must all be positive");
+        }
+      }
+      else if (args[k].equals("--time")) {
+        this.millis = Long.parseLong(value);
+        if (this.millis < 1) {
+          throw new IllegalArgumentException("--time must be positive");
+        }
+      }
+      else if (args[k].equals("--out")) {
+        this.out = Paths.get(value);
+      }
+      else if (args[k].equals("--baseline")) {
+        this.baseline = Paths.get(value);
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option: " + args[k]);
+      }
+    }
+  }
+
+  // every benchmark
+  ArrayList<ABenchmark> benchmarks() {
+    return new ArrayList<ABenchmark>(Arrays.asList(new GenerateBoardBenchmark(),
+        new ConnectBoardBenchmark(), new SortBenchmark(), new KruskalBenchmark(),
+        new CompactKruskalBenchmark(), new CellSearchBenchmark(true),
+        new CellSearchBenchmark(false), new OnTickBenchmark("b"), new OnTickBenchmark("d")));
+  }
+
+  // a perfect maze of Cells, the way the game makes one
+  ArrayList<Cell> cellMaze(int width, int height) {
+    ArrayUtils util = new ArrayUtils();
+    ArrayList<Cell> board = util.generateBoard(width, height);
+    ArrayList<Edge> edges = util.connectBoard(board, width, height, 1L);
+    util.kruskal(util.sort(edges, 0, edges.size() - 1));
+    return board;
+  }
+
+  // the results of every benchmark on every size it allows, in order
+  ArrayList<BenchmarkResult> runAll() {
+    ArrayList<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+    for (ABenchmark benchmark : this.benchmarks()) {
+      for (int size : this.sizes) {
+        if ((long) size * size <= benchmark.maxCells) {
+          results.add(this.measure(benchmark, size, size));
+        }
+      }
+    }
+    return results;
+  }
+
+  // runs the benchmark for millis to warm it up, then for millis more, timing
+  // every run and counting what it allocates
+  BenchmarkResult measure(ABenchmark benchmark, int width, int height) {
+    benchmark.setUp(width, height);
+    this.loop(benchmark, null);
+    long[] totals = new long[3];
+    this.loop(benchmark, totals);
+    return new BenchmarkResult(benchmark.name, width, height, totals[0], totals[1], totals[2]);
+  }
+
+  // EFFECT: runs the benchmark over and over, at least once, for millis,
+  // adding the number of runs, their time and their allocations to totals if
+  // it is not null
+  void loop(ABenchmark benchmark, long[] totals) {
+    long end = System.nanoTime() + this.millis * 1000000;
+    do {
+      benchmark.prepare();
+      long bytes = this.allocatedBytes();
+      long start = System.nanoTime();
+      this.sink = benchmark.run();
+      long time = System.nanoTime() - start;
+      long allocated = this.allocatedBytes() - bytes;
+      if (totals != null) {
+        totals[0]++;
+        totals[1] += time;
+        totals[2] = bytes < 0 || totals[2] < 0 ? -1 : totals[2] + allocated;
+      }
+    } while (System.nanoTime() < end);
+  }
+
+  // the bytes this thread has allocated so far, or -1 if the JVM cannot say
+  long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  // the throughput of every result in a CSV an earlier run wrote, by key
+  HashMap<String, Double> readBaseline(Path path) throws IOException {
+    HashMap<String, Double> result = new HashMap<String, Double>();
+    List<String> lines = Files.readAllLines(path);
+    for (String line : lines.subList(1, lines.size())) {
+      String[] fields = line.split(",");
+      result.put(fields[0] + "," + fields[1], Double.parseDouble(fields[2]));
+    }
+    return result;
+  }
+
+  // a line of the report for the result, with its change in throughput from
+  // the baseline when the baseline has it
+  String report(BenchmarkResult result, HashMap<String, Double> baseline) {
+    String line = String.format(Locale.ROOT, "%-20s %10s %14.1f ops/s %14.1f B/op %10.1f MB/s",
+        result.name, result.width + "x" + result.height, result.opsPerSecond(),
+        result.bytesPerOp(), result.allocationRate());
+    if (baseline.containsKey(result.key())) {
+      line += String.format(Locale.ROOT, " %+.1f%%",
+          100 * (result.opsPerSecond() / baseline.get(result.key()) - 1));
+    }
+    return line;
+  }
+
+  // EFFECT: runs every benchmark, printing each result, and writes the CSV,
+  // or prints what was wrong with the options
+  public static void main(String[] args) throws IOException {
+    MazeBenchmark harness;
+    try {
+      harness = new MazeBenchmark(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(MazeBenchmark.USAGE);
+      System.exit(2);
+      return;
+    }
+    HashMap<String, Double> baseline = harness.baseline == null ? new HashMap<String, Double>()
+        : harness.readBaseline(harness.baseline);
+
+    ArrayList<String> lines = new ArrayList<String>(Arrays.asList(MazeBenchmark.CSV_HEADER));
+    for (BenchmarkResult result : harness.runAll()) {
+      System.out.println(harness.report(result, baseline));
+      lines.add(result.csv());
+    }
+    Files.write(harness.out, lines);
+  }
+}
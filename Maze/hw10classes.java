@@ -1,6 +1,16 @@
 
 // Libraries used
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import tester.*;
 import javalib.impworld.*;
@@ -22,7 +32,10 @@ class Cell {
   Edge rightEdge;
   // represents the left edge of the cell
   Edge leftEdge;
+  // the representative of the set of cells this cell is connected to
   int set;
+  // the index of this cell on the board, which never changes
+  int id;
 
   Color color;
 
@@ -37,6 +50,7 @@ class Cell {
     this.rightEdge = rightEdge;
     this.leftEdge = leftEdge;
     this.set = set;
+    this.id = set;
     this.color = color;
   }
 
@@ -46,9 +60,9 @@ class Cell {
   }
 
   // Cell Size, Cell Color, and Edge Color
-  static int CELL_SIZE = 20;
-  static Color CELL_COLOR = Color.GRAY;
-  static Color WALL_COLOR = Color.BLACK;
+  static final int CELL_SIZE = 20;
+  static final Color CELL_COLOR = Color.GRAY;
+  static final Color WALL_COLOR = Color.BLACK;
 
   // Draws the top and right edge of a cell. If any edge is not solid, then we
   // don't draw the edge.
@@ -72,36 +86,38 @@ class Cell {
     return result;
   }
 
-  ArrayList<Edge> listifyEdges() {
-    ArrayList<Edge> result = new ArrayList<Edge>();
-
+  // writes this cell's open edges into out, which needs room for 4, in the
+  // order top, bottom, right, left, and returns how many there are
+  int openEdges(Edge[] out) {
+    int count = 0;
     if (this.topEdge != null && !this.topEdge.solid) {
-      result.add(topEdge);
+      out[count++] = this.topEdge;
     }
 
     if (this.botEdge != null && !this.botEdge.solid) {
-      result.add(botEdge);
+      out[count++] = this.botEdge;
     }
 
     if (this.rightEdge != null && !this.rightEdge.solid) {
-      result.add(rightEdge);
+      out[count++] = this.rightEdge;
     }
 
     if (this.leftEdge != null && !this.leftEdge.solid) {
-      result.add(leftEdge);
+      out[count++] = this.leftEdge;
     }
 
-    return result;
+    return count;
   }
 
+  // is this cell at either end of one of c's open edges?
   boolean isANeighbor(Cell c) {
-    for (Edge e : c.listifyEdges()) {
-      if (this == e.startCell || this == e.endCell) {
-        return true;
-      }
-    }
+    return this.isEndOf(c.topEdge) || this.isEndOf(c.botEdge) || this.isEndOf(c.rightEdge)
+        || this.isEndOf(c.leftEdge);
+  }
 
-    return false;
+  // is the given edge open and this cell at one of its ends?
+  boolean isEndOf(Edge e) {
+    return e != null && !e.solid && (this == e.startCell || this == e.endCell);
   }
 }
 
@@ -127,22 +143,125 @@ class Edge {
 
 }
 
+// represents a disjoint-set forest over the indices 0 .. size - 1, merged with
+// union by rank and flattened with path compression
+class UnionFind {
+  // the parent of every index, roots are their own parent
+  int[] parent;
+  // an upper bound on the height of the tree under every root
+  int[] rank;
+  // the number of disjoint sets left
+  int components;
+
+  // Constructor: every index starts in a set of its own
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new int[size];
+    this.components = size;
+    for (int i = 0; i < size; i++) {
+      this.parent[i] = i;
+    }
+  }
+
+  // returns the representative of the set containing i
+  // EFFECT: points every index on the way up directly at the representative
+  int find(int i) {
+    int root = i;
+    while (this.parent[root] != root) {
+      root = this.parent[root];
+    }
+
+    while (this.parent[i] != root) {
+      int next = this.parent[i];
+      this.parent[i] = root;
+      i = next;
+    }
+    return root;
+  }
+
+  // merges the sets containing a and b, returning false if they were already
+  // the same set
+  boolean union(int a, int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+
+    // hang the shorter tree under the taller one
+    if (this.rank[rootA] < this.rank[rootB]) {
+      this.parent[rootA] = rootB;
+    }
+    else if (this.rank[rootA] > this.rank[rootB]) {
+      this.parent[rootB] = rootA;
+    }
+    else {
+      this.parent[rootB] = rootA;
+      this.rank[rootA]++;
+    }
+    this.components--;
+    return true;
+  }
+}
+
 // Represents a Utils class
 class ArrayUtils {
   // Empty Constructor
   ArrayUtils() {
   }
 
+  // EFFECT: colors the cells on the way back from last to first, following
+  // the cell each one was reached from
   void reconstruct(HashMap<Cell, Cell> map, Cell last, Cell first) {
 
     Cell currentNode = last;
 
     while (currentNode != first) {
       currentNode.color = Color.BLACK;
-      currentNode = map.get(last);
+      currentNode = map.get(currentNode);
 
     }
+    first.color = Color.BLACK;
+
+  }
 
+  // returns the cells on the way from from to to, both included, following the
+  // parent array filled in by a search. Returns an empty path if the search
+  // never reached to
+  int[] reconstruct(int[] parent, int from, int to) {
+    return this.reconstruct(new HeapScratch(parent), from, to);
+  }
+
+  // returns the cell every cell was first reached from by a search, or -1 for
+  // cells it never reached
+  int[] parents(ISearchScratch scratch) {
+    int[] result = new int[scratch.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = scratch.isVisited(i) ? scratch.parent(i) : -1;
+    }
+    return result;
+  }
+
+  // returns the cells on the way from from to to, both included, following the
+  // parents a search left in its scratch space. Returns an empty path if the
+  // search never reached to
+  int[] reconstruct(ISearchScratch scratch, int from, int to) {
+    if (!scratch.isVisited(to)) {
+      return new int[0];
+    }
+
+    int length = 1;
+    for (int cell = to; cell != from; cell = scratch.parent(cell)) {
+      length++;
+    }
+
+    int[] path = new int[length];
+    int cell = to;
+    for (int i = length - 1; i >= 0; i--) {
+      path[i] = cell;
+      cell = scratch.parent(cell);
+    }
+    return path;
   }
 
   // draws the world
@@ -165,16 +284,26 @@ class ArrayUtils {
     return result;
   }
 
-  // mutates the board and returns a list of the edges connected appropriately
+  // mutates the board and returns a list of the edges connected appropriately,
+  // with weights from a fresh seed
   ArrayList<Edge> connectBoard(ArrayList<Cell> board, int boardWidth, int boardHeight) {
+    return this.connectBoard(board, boardWidth, boardHeight, new SplittableRandom().nextLong());
+  }
+
+  // mutates the board and returns a list of the edges connected appropriately,
+  // with weights drawn from the given seed, so the same seed always makes the
+  // same maze
+  ArrayList<Edge> connectBoard(ArrayList<Cell> board, int boardWidth, int boardHeight,
+      long seed) {
+    SplittableRandom rand = new SplittableRandom(seed);
     ArrayList<Edge> result = new ArrayList<Edge>();
     // we only need to make bottom and right edges, because that is how we construct
     // our board
     for (int i = 0; i < boardWidth * boardHeight; i++) {
       // bottom edge
       if (i + boardWidth < boardWidth * boardHeight) {
-        Edge bot = new Edge(board.get(i), board.get(i + boardWidth), new Random().nextInt(10),
-            true);
+        Edge bot = new Edge(board.get(i), board.get(i + boardWidth),
+            rand.nextInt(ArrayUtils.WEIGHT_RANGE), true);
         board.get(i).botEdge = bot;
         board.get(i + boardWidth).topEdge = bot;
         result.add(bot);
@@ -182,7 +311,8 @@ class ArrayUtils {
 
       // right edge
       if (i % boardWidth != boardWidth - 1) {
-        Edge right = new Edge(board.get(i), board.get(i + 1), new Random().nextInt(10), true);
+        Edge right = new Edge(board.get(i), board.get(i + 1),
+            rand.nextInt(ArrayUtils.WEIGHT_RANGE), true);
         board.get(i).rightEdge = right;
         board.get(i + 1).leftEdge = right;
         result.add(right);
@@ -192,92 +322,476 @@ class ArrayUtils {
     return result;
   }
 
-  // connectBoardTest method with seeded random
-  ArrayList<Edge> connectBoardTest(ArrayList<Cell> board, int boardWidth, Random rand) {
-    ArrayList<Edge> result = new ArrayList<Edge>();
-    // we only need to make bottom and right edges, because that is how we construct
-    // our board
-    for (int i = 0; i < boardWidth * boardWidth; i++) {
-      // bottom edge
-      if (i + boardWidth < boardWidth * boardWidth) {
-        Edge bot = new Edge(board.get(i), board.get(i + boardWidth), rand.nextInt(), true);
-        board.get(i).botEdge = bot;
-        board.get(i + boardWidth).topEdge = bot;
-        result.add(bot);
+  // the weights the generators draw edge weights from are 0 .. WEIGHT_RANGE - 1
+  static final int WEIGHT_RANGE = 10;
+
+  // the widest weight range that is always sorted by counting, no matter how
+  // few edges there are
+  static final int COUNTING_SORT_RANGE = 1 << 10;
+
+  // Sorts the given ArrayList<Edge> between min and max (inclusive) by weight.
+  // Small integer weight ranges (connectBoard only makes 0 - 9) are counted
+  // into buckets in linear time, anything wider falls back to an iterative
+  // merge sort. Both are stable.
+  ArrayList<Edge> sort(ArrayList<Edge> board, int min, int max) {
+    if (min >= max) {
+      return board;
+    }
+
+    int lowest = board.get(min).weight;
+    int highest = lowest;
+    for (int i = min + 1; i <= max; i++) {
+      lowest = Math.min(lowest, board.get(i).weight);
+      highest = Math.max(highest, board.get(i).weight);
+    }
+
+    long range = (long) highest - lowest + 1;
+    if (range <= Math.max(max - min + 1, ArrayUtils.COUNTING_SORT_RANGE)) {
+      this.countingSort(board, min, max, lowest, (int) range);
+    }
+    else {
+      this.mergeSort(board, min, max);
+    }
+    return board;
+  }
+
+  // EFFECT: sorts board between min and max by counting how many edges have
+  // each weight in lowest .. lowest + range - 1
+  void countingSort(ArrayList<Edge> board, int min, int max, int lowest, int range) {
+    int[] starts = new int[range + 1];
+    for (int i = min; i <= max; i++) {
+      starts[board.get(i).weight - lowest + 1]++;
+    }
+    for (int w = 0; w < range; w++) {
+      starts[w + 1] += starts[w];
+    }
+
+    Edge[] sorted = new Edge[max - min + 1];
+    for (int i = min; i <= max; i++) {
+      Edge e = board.get(i);
+      sorted[starts[e.weight - lowest]++] = e;
+    }
+    for (int i = 0; i < sorted.length; i++) {
+      board.set(min + i, sorted[i]);
+    }
+  }
+
+  // EFFECT: sorts board between min and max with a bottom-up merge sort, which
+  // needs no recursion however many edges there are
+  void mergeSort(ArrayList<Edge> board, int min, int max) {
+    int size = max - min + 1;
+    Edge[] from = new Edge[size];
+    Edge[] to = new Edge[size];
+    for (int i = 0; i < size; i++) {
+      from[i] = board.get(min + i);
+    }
+
+    for (int run = 1; run < size; run *= 2) {
+      for (int lo = 0; lo < size; lo += 2 * run) {
+        int mid = Math.min(lo + run, size);
+        int hi = Math.min(lo + 2 * run, size);
+        int left = lo;
+        int right = mid;
+        for (int k = lo; k < hi; k++) {
+          if (right >= hi || (left < mid && from[left].weight <= from[right].weight)) {
+            to[k] = from[left++];
+          }
+          else {
+            to[k] = from[right++];
+          }
+        }
       }
+      Edge[] temp = from;
+      from = to;
+      to = temp;
+    }
 
-      // right edge
-      if (i % boardWidth != boardWidth - 1) {
-        Edge right = new Edge(board.get(i), board.get(i + 1), rand.nextInt(10), true);
-        board.get(i).rightEdge = right;
-        board.get(i + 1).leftEdge = right;
-        result.add(right);
+    for (int i = 0; i < size; i++) {
+      board.set(min + i, from[i]);
+    }
+  }
+
+  // Kruskal's Algorithm: knocks down every edge of the sorted board that joins
+  // two different trees, leaving one spanning tree over all the cells
+  void kruskal(ArrayList<Edge> sortedBoard) {
+    int size = 0;
+    for (Edge e : sortedBoard) {
+      size = Math.max(size, Math.max(e.startCell.id, e.endCell.id) + 1);
+    }
+
+    UnionFind sets = new UnionFind(size);
+    for (Edge e : sortedBoard) {
+      if (sets.components == 1) {
+        break;
       }
+      if (sets.union(e.startCell.id, e.endCell.id)) {
+        e.solid = false;
+      }
+    }
 
+    // every cell remembers the representative of the tree it ended up in
+    for (Edge e : sortedBoard) {
+      e.startCell.set = sets.find(e.startCell.id);
+      e.endCell.set = sets.find(e.endCell.id);
     }
+  }
+
+  // makes a width x height compact maze with every wall standing and a random
+  // weight, drawn from the given seed, on each of its inner edges
+  CompactMaze connectBoard(int width, int height, long seed) {
+    CompactMaze result = new CompactMaze(width, height);
+    result.weights = this.edgeWeights(result.size(), seed);
     return result;
   }
 
-  // Sorts the given ArrayList<Edge> using QuickSort
-  ArrayList<Edge> sort(ArrayList<Edge> board, int min, int max) {
-    if (min > max) {
-      return board;
+  // the weights of the right and bottom edges of the given number of cells,
+  // drawn from the seed in edge id order, the way connectBoard gives them to
+  // a compact maze
+  int[] edgeWeights(int cells, long seed) {
+    SplittableRandom rand = new SplittableRandom(seed);
+    int[] weights = new int[2 * cells];
+    for (int e = 0; e < weights.length; e++) {
+      weights[e] = rand.nextInt(ArrayUtils.WEIGHT_RANGE);
+    }
+    return weights;
+  }
+
+  // makes a width x height perfect maze with the generator that has the given
+  // MazeFile id. The same seed and generator always make the same maze, so a
+  // maze file's header is enough to make its maze again
+  CompactMaze generate(int width, int height, long seed, int generator) {
+    if (generator == MazeFile.KRUSKAL) {
+      // keeps the weights, so the maze can be built again on screen
+      CompactMaze result = this.connectBoard(width, height, seed);
+      this.kruskal(result);
+      return result;
+    }
+    CompactMaze result = new CompactMaze(width, height);
+    this.generate(result, seed, generator);
+    return result;
+  }
 
+  // EFFECT: knocks down the walls of a perfect maze in the given maze, which
+  // must have every wall standing, with the generator that has the given
+  // MazeFile id. Every kind of storage gets the same maze from the same seed
+  void generate(AGridMaze maze, long seed, int generator) {
+    if (generator == MazeFile.KRUSKAL) {
+      this.kruskal(maze, seed);
+    }
+    else if (generator == MazeFile.PARALLEL) {
+      new ParallelGenerator().generate(maze, seed);
     }
-    int midIndex = min + (max - min) / 2;
-    int pivot = board.get(midIndex).weight;
-    int i = min;
-    int j = max;
+    else if (generator == MazeFile.ELLER) {
+      new EllerGenerator(maze.width, seed).generate(maze.height, new GridRowSink(maze));
+    }
+    else {
+      throw new IllegalArgumentException("Unknown generator: " + generator);
+    }
+  }
 
-    while (i <= j) {
-      while (board.get(i).weight < pivot) {
-        i++;
+  // the measurements of every maze, in the same order, taken a piece of the
+  // mazes at a time on the pool
+  MazeAnalytics[] analyze(IMazeGraph[] mazes, ForkJoinPool pool) {
+    MazeAnalytics[] results = new MazeAnalytics[mazes.length];
+    pool.invoke(new AnalyzeMazes(mazes, results, 0, mazes.length));
+    return results;
+  }
+
+  // returns the ids of the inner edges of the given maze ordered by weight,
+  // where cell i's right edge is 2 * i and its bottom edge is 2 * i + 1
+  int[] sortEdgeIds(CompactMaze maze) {
+    return this.sortEdgeIds(maze, maze.weights);
+  }
+
+  // returns the ids of the inner edges of the given maze ordered by the
+  // weights, which are indexed by edge id. Ties keep edge id order
+  int[] sortEdgeIds(AGridMaze maze, int[] weights) {
+    int count = 0;
+    int lowest = Integer.MAX_VALUE;
+    int highest = Integer.MIN_VALUE;
+    for (int e = 0; e < weights.length; e++) {
+      if (this.isInnerEdge(maze, e)) {
+        count++;
+        lowest = Math.min(lowest, weights[e]);
+        highest = Math.max(highest, weights[e]);
       }
-      while (board.get(j).weight > pivot) {
-        j--;
+    }
+
+    int[] result = new int[count];
+    long range = (long) highest - lowest + 1;
+    if (count == 0) {
+      return result;
+    }
+    else if (range <= Math.max(count, ArrayUtils.COUNTING_SORT_RANGE)) {
+      int[] starts = new int[(int) range + 1];
+      for (int e = 0; e < weights.length; e++) {
+        if (this.isInnerEdge(maze, e)) {
+          starts[weights[e] - lowest + 1]++;
+        }
+      }
+      for (int w = 0; w < range; w++) {
+        starts[w + 1] += starts[w];
+      }
+      for (int e = 0; e < weights.length; e++) {
+        if (this.isInnerEdge(maze, e)) {
+          result[starts[weights[e] - lowest]++] = e;
+        }
       }
-      if (i <= j) {
-        Edge temp = board.get(i);
-        board.set(i, board.get(j));
-        board.set(j, temp);
-        i++;
-        j--;
+    }
+    else {
+      // weight in the high half, edge id in the low half, so ties keep id order
+      long[] keys = new long[count];
+      int k = 0;
+      for (int e = 0; e < weights.length; e++) {
+        if (this.isInnerEdge(maze, e)) {
+          keys[k++] = ((long) weights[e] << 32) | e;
+        }
+      }
+      Arrays.sort(keys);
+      for (int i = 0; i < count; i++) {
+        result[i] = (int) keys[i];
+      }
+    }
+    return result;
+  }
+
+  // is the given edge id inside the maze, rather than on its right or bottom
+  // border?
+  boolean isInnerEdge(AGridMaze maze, int edge) {
+    int cell = edge >>> 1;
+    if ((edge & 1) == 0) {
+      return cell % maze.width != maze.width - 1;
+    }
+    else {
+      return cell + maze.width < maze.size();
+    }
+  }
+
+  // Kruskal's Algorithm on a compact maze, over its own weights
+  // EFFECT: knocks down the walls of a spanning tree of lightest edges
+  void kruskal(CompactMaze maze) {
+    this.kruskal(maze, maze.weights);
+  }
+
+  // Kruskal's Algorithm on a maze stored anywhere, over weights drawn from the
+  // seed as connectBoard draws them, so it makes the same maze as
+  // connectBoard and kruskal on a compact maze
+  // EFFECT: knocks down the walls of a spanning tree of lightest edges
+  void kruskal(AGridMaze maze, long seed) {
+    this.kruskal(maze, this.edgeWeights(maze.size(), seed));
+  }
 
+  // Kruskal's Algorithm over the given weights, indexed by edge id
+  // EFFECT: knocks down the walls of a spanning tree of lightest edges
+  void kruskal(AGridMaze maze, int[] weights) {
+    UnionFind sets = new UnionFind(maze.size());
+    for (int e : this.sortEdgeIds(maze, weights)) {
+      if (sets.components == 1) {
+        break;
       }
 
+      int cell = e >>> 1;
+      if ((e & 1) == 0 && sets.union(cell, cell + 1)) {
+        maze.openRight(cell);
+      }
+      else if ((e & 1) == 1 && sets.union(cell, cell + maze.width)) {
+        maze.openBottom(cell);
+      }
     }
-    if (min < j) {
-      sort(board, min, j);
+  }
 
+  // Kruskal's Algorithm on a maze of any shape, with edge weights drawn from
+  // the seed and counted into buckets by weight
+  // EFFECT: opens the passages of a spanning tree of lightest edges
+  void kruskal(CsrMaze maze, long seed) {
+    SplittableRandom rand = new SplittableRandom(seed);
+    // every edge once, from its lower numbered cell to the target in its slot
+    int[] cells = new int[maze.targets.length / 2];
+    int[] slots = new int[cells.length];
+    int[] weights = new int[cells.length];
+    int[] starts = new int[ArrayUtils.WEIGHT_RANGE + 1];
+    int count = 0;
+    for (int cell = 0; cell < maze.size(); cell++) {
+      for (int s = maze.offsets[cell]; s < maze.offsets[cell + 1]; s++) {
+        if (maze.targets[s] > cell) {
+          cells[count] = cell;
+          slots[count] = s;
+          weights[count] = rand.nextInt(ArrayUtils.WEIGHT_RANGE);
+          starts[weights[count] + 1]++;
+          count++;
+        }
+      }
     }
-    if (max > i) {
-      sort(board, i, max);
+    for (int w = 0; w < ArrayUtils.WEIGHT_RANGE; w++) {
+      starts[w + 1] += starts[w];
+    }
+    int[] sorted = new int[count];
+    for (int e = 0; e < count; e++) {
+      sorted[starts[weights[e]]++] = e;
     }
-    return board;
 
+    UnionFind sets = new UnionFind(maze.size());
+    for (int e : sorted) {
+      if (sets.components == 1) {
+        break;
+      }
+      if (sets.union(cells[e], maze.targets[slots[e]])) {
+        maze.openPassage(cells[e], maze.targets[slots[e]]);
+      }
+    }
   }
 
-  // Kruskal's Algorithm
-  void kruskal(ArrayList<Edge> sortedBoard) {
-    HashMap<Integer, ArrayList<Cell>> bins = new HashMap<Integer, ArrayList<Cell>>();
-    for (int i = 0; i < Maze.BOARD_WIDTH * Maze.BOARD_HEIGHT; i++) {
-      bins.put(i, new ArrayList<Cell>());
+  // EFFECT: knocks down the walls of a random spanning tree of the tile of
+  // the maze that is columns wide and rows tall, with its top left cell at
+  // (left, top). Walls on the edge of the tile are left standing
+  void connectTile(AGridMaze maze, int left, int top, int columns, int rows,
+      SplittableRandom rand) {
+    int cells = columns * rows;
+    // local edge ids are 2 * l for the right edge and 2 * l + 1 for the bottom
+    // edge of the tile's cell l
+    int[] weights = new int[2 * cells];
+    int[] starts = new int[ArrayUtils.WEIGHT_RANGE + 1];
+    int count = 0;
+    for (int e = 0; e < 2 * cells; e++) {
+      int l = e >>> 1;
+      if ((e & 1) == 0 ? l % columns != columns - 1 : l + columns < cells) {
+        weights[e] = rand.nextInt(ArrayUtils.WEIGHT_RANGE);
+        starts[weights[e] + 1]++;
+        count++;
+      }
+      else {
+        weights[e] = -1;
+      }
+    }
+    for (int w = 0; w < ArrayUtils.WEIGHT_RANGE; w++) {
+      starts[w + 1] += starts[w];
+    }
+    int[] order = new int[count];
+    for (int e = 0; e < 2 * cells; e++) {
+      if (weights[e] != -1) {
+        order[starts[weights[e]]++] = e;
+      }
     }
 
-    for (Edge e : sortedBoard) {
-      if (e.startCell.set != e.endCell.set) {
-        e.solid = false;
+    UnionFind sets = new UnionFind(cells);
+    for (int e : order) {
+      if (sets.components == 1) {
+        break;
+      }
+
+      int l = e >>> 1;
+      int cell = (top + l / columns) * maze.width + left + l % columns;
+      if ((e & 1) == 0 && sets.union(l, l + 1)) {
+        maze.openRight(cell);
+      }
+      else if ((e & 1) == 1 && sets.union(l, l + columns)) {
+        maze.openBottom(cell);
+      }
+    }
+  }
 
-        bins.get(e.startCell.set).add(e.startCell);
-        bins.get(e.endCell.set).add(e.endCell);
+  // EFFECT: joins tiles that are each a spanning tree into one spanning tree,
+  // running Kruskal's algorithm over only the edges between tiles. boundary
+  // holds edge ids as in sortEdgeIds, with their weights in boundaryWeights
+  void joinTiles(AGridMaze maze, TileLayout tiles, int[][] boundary,
+      int[][] boundaryWeights) {
+    int[] starts = new int[ArrayUtils.WEIGHT_RANGE + 1];
+    int count = 0;
+    for (int[] weights : boundaryWeights) {
+      for (int w : weights) {
+        starts[w + 1]++;
+        count++;
+      }
+    }
+    for (int w = 0; w < ArrayUtils.WEIGHT_RANGE; w++) {
+      starts[w + 1] += starts[w];
+    }
+    int[] order = new int[count];
+    for (int b = 0; b < boundary.length; b++) {
+      for (int k = 0; k < boundary[b].length; k++) {
+        order[starts[boundaryWeights[b][k]]++] = boundary[b][k];
+      }
+    }
 
-        for (Cell c : bins.get(e.endCell.set)) {
-          c.set = e.startCell.set;
-          bins.get(e.startCell.set).add(c);
+    UnionFind sets = new UnionFind(tiles.tiles());
+    for (int e : order) {
+      if (sets.components == 1) {
+        break;
+      }
+
+      int cell = e >>> 1;
+      int other = (e & 1) == 0 ? cell + 1 : cell + maze.width;
+      if (sets.union(tiles.tileOf(cell), tiles.tileOf(other))) {
+        if ((e & 1) == 0) {
+          maze.openRight(cell);
+        }
+        else {
+          maze.openBottom(cell);
         }
+      }
+    }
+  }
+
+  // searches a maze from one cell until it reaches another, depth
+  // first or breadth first. Returns the cell each reached cell was first
+  // reached from (from is its own parent), or -1 for cells never reached
+  int[] search(IMazeGraph maze, int from, int to, boolean depthFirst) {
+    int[] parent = new int[maze.size()];
+    Arrays.fill(parent, -1);
+    // a stack grows from the front, a queue is read from head to tail
+    int[] frontier = new int[maze.size()];
+    int head = 0;
+    int tail = 0;
+
+    int[] neighbors = new int[maze.maxDegree()];
+
+    frontier[tail++] = from;
+    parent[from] = from;
+    while (head < tail) {
+      int next = depthFirst ? frontier[--tail] : frontier[head++];
+      if (next == to) {
+        break;
+      }
 
+      int count = maze.openNeighbors(next, neighbors);
+      for (int k = 0; k < count; k++) {
+        int neighbor = neighbors[k];
+        if (parent[neighbor] == -1) {
+          parent[neighbor] = next;
+          frontier[tail++] = neighbor;
+        }
       }
     }
+    return parent;
+  }
+
+  // draws cell i of a compact maze in the given color, with the same top and
+  // right walls Cell.drawCell would draw
+  WorldImage drawCell(CompactMaze maze, int i, Color color) {
+    WorldImage result = new RectangleImage(Cell.CELL_SIZE, Cell.CELL_SIZE, OutlineMode.SOLID,
+        color);
+    if (i >= maze.width && maze.hasTopWall(i)) {
+      result = new OverlayOffsetImage(
+          new RectangleImage(Cell.CELL_SIZE, 1, OutlineMode.SOLID, Cell.WALL_COLOR), 0,
+          Cell.CELL_SIZE / 2, result);
+    }
+
+    if (i % maze.width != maze.width - 1 && maze.hasRightWall(i)) {
+      result = new OverlayOffsetImage(
+          new RectangleImage(1, Cell.CELL_SIZE, OutlineMode.SOLID, Cell.WALL_COLOR),
+          -Cell.CELL_SIZE / 2, 0, result);
+    }
+    return result;
+  }
+
+  // draws every cell of a compact maze
+  WorldScene drawWorldScene(CompactMaze maze, WorldScene scene) {
+    for (int i = 0; i < maze.size(); i++) {
+      scene.placeImageXY(this.drawCell(maze, i, Cell.CELL_COLOR),
+          (i % maze.width) * Cell.CELL_SIZE + (Cell.CELL_SIZE / 2),
+          (i / maze.width) * Cell.CELL_SIZE + (Cell.CELL_SIZE / 2));
+    }
+    return scene;
   }
 
   ArrayList<Cell> dfs(ArrayList<Cell> cellList) {
@@ -285,39 +799,46 @@ class ArrayUtils {
     // THERE ARE EDGES ON THE WHOLE BOARD, WHETHER OR NOT THEY ARE PASSABLE IS A
     // BOOLEAN SOLID
     ArrayList<Cell> result = new ArrayList<Cell>();
-    ArrayList<Cell> alreadySeenCell = new ArrayList<Cell>();
+    // the ids of the cells already seen
+    BitSet alreadySeenCell = new BitSet(cellList.size());
+    // the top of the work list is its last item, so pushing and popping never
+    // shift the rest of it
     ArrayList<Cell> workList = new ArrayList<Cell>();
+    // the open edges of the cell being expanded, reused for every cell
+    Edge[] open = new Edge[4];
 
     workList.add(cellList.get(0));
 
     Cell finalCell = cellList.get(cellList.size() - 1);
 
     while (workList.size() > 0) {
-      Cell c = workList.remove(0);
+      Cell c = workList.remove(workList.size() - 1);
       result.add(c);
       if (c == finalCell) {
         for (Cell cell : result) {
           cell.color = Color.WHITE;
-          System.out.println(Integer.toString(cell.xPos) + "," + Integer.toString(cell.yPos));
         }
         return result;
       }
 
-      if (alreadySeenCell.contains(c)) {
-        result.remove(result.lastIndexOf(c));
+      if (alreadySeenCell.get(c.id)) {
+        // c was only just added, so it is the last cell of the result
+        result.remove(result.size() - 1);
       }
       else {
-        for (Edge e : c.listifyEdges()) {
-          workList.add(0, e.startCell);
-          workList.add(0, e.endCell);
+        int count = c.openEdges(open);
+        for (int k = 0; k < count; k++) {
+          workList.add(open[k].startCell);
+          workList.add(open[k].endCell);
         }
 
-        alreadySeenCell.add(c);
+        alreadySeenCell.set(c.id);
 
       }
 
       for (int i = result.size() - 1; i == 0; i--) {
-        if (!workList.get(0).isANeighbor(result.get(i)) || workList.get(0) == result.get(i)) {
+        Cell top = workList.get(workList.size() - 1);
+        if (!top.isANeighbor(result.get(i)) || top == result.get(i)) {
           result.remove(i);
         }
         else {
@@ -325,44 +846,37 @@ class ArrayUtils {
         }
       }
     }
-    // for (Cell cell : result) {
-    // cell.color = Color.WHITE;
-    // System.out.println(Integer.toString(cell.xPos) + "," +
-    // Integer.toString(cell.yPos));
-    // }
     return result;
   }
 
   boolean depthFirstSearch(Cell from, Cell to) {
-    // to make it return a list, maybe have an
-    // arrayList correctPath, which objects get removed from
-    // if them and all their neighbors neighbors... have been explored
-
-    // use a boolean function like "fullyExplored" or smthn
-
-    ArrayList<Cell> alreadySeen = new ArrayList<Cell>();
+    // the ids of the cells already seen
+    BitSet alreadySeen = new BitSet();
+    // the top of the work list is its last item
     ArrayList<Cell> workList = new ArrayList<Cell>();
+    // the open edges of the cell being expanded, reused for every cell
+    Edge[] open = new Edge[4];
 
     // put from onto the worklist
 
-    workList.add(0, from);
+    workList.add(from);
 
     while (workList.size() > 0) {
-      Cell c = workList.remove(0);
+      Cell c = workList.remove(workList.size() - 1);
       if (c == to) {
         return true;
       }
 
-      if (alreadySeen.contains(c)) {
+      if (alreadySeen.get(c.id)) {
         continue;
       }
       else {
-        System.out.println(Integer.toString(c.xPos) + "," + Integer.toString(c.yPos));
-        for (Edge e : c.listifyEdges()) {
-          workList.add(0, e.endCell);
-          workList.add(0, e.startCell);
+        int count = c.openEdges(open);
+        for (int k = 0; k < count; k++) {
+          workList.add(open[k].endCell);
+          workList.add(open[k].startCell);
         }
-        alreadySeen.add(c);
+        alreadySeen.set(c.id);
       }
 
       // get the next vertex to work from
@@ -392,53 +906,185 @@ interface ICollection<T> {
   T remove();
 }
 
-class Stack<T> implements ICollection<T> {
-  ArrayList<T> contents;
+// represents a collection kept in a growable circular array, so items can be
+// added at either end and removed from the front without shifting the rest
+abstract class ARingCollection<T> implements ICollection<T> {
+  // the items, starting at head and wrapping around; the length is a power of 2
+  Object[] items;
+  // the index of the first item
+  int head;
+  // the number of items
+  int size;
 
-  Stack() {
-    this.contents = new ArrayList<T>();
+  // Constructor
+  ARingCollection() {
+    this.items = new Object[16];
+    this.head = 0;
+    this.size = 0;
   }
 
   // Is this collection empty?
   public boolean isEmpty() {
-    return this.contents.isEmpty();
+    return this.size == 0;
   }
 
+  // Returns the first item of the collection
+  // EFFECT: removes that first item
+  @SuppressWarnings("unchecked")
+  public T remove() {
+    if (this.size == 0) {
+      throw new IndexOutOfBoundsException("Cannot remove from an empty collection");
+    }
+
+    T item = (T) this.items[this.head];
+    this.items[this.head] = null;
+    this.head = (this.head + 1) & (this.items.length - 1);
+    this.size--;
+    return item;
+  }
+
+  // EFFECT: puts the item in front of the first item
+  void addFirst(T item) {
+    this.ensureRoom();
+    this.head = (this.head - 1) & (this.items.length - 1);
+    this.items[this.head] = item;
+    this.size++;
+  }
+
+  // EFFECT: puts the item after the last item
+  void addLast(T item) {
+    this.ensureRoom();
+    this.items[(this.head + this.size) & (this.items.length - 1)] = item;
+    this.size++;
+  }
+
+  // EFFECT: doubles the array, unwrapping the items, if it is full
+  void ensureRoom() {
+    if (this.size == this.items.length) {
+      Object[] bigger = new Object[2 * this.items.length];
+      for (int i = 0; i < this.size; i++) {
+        bigger[i] = this.items[(this.head + i) & (this.items.length - 1)];
+      }
+      this.items = bigger;
+      this.head = 0;
+    }
+  }
+}
+
+// represents a last in, first out collection
+class Stack<T> extends ARingCollection<T> {
   // EFFECT: adds the item to the collection
   public void add(T item) {
-    this.contents.add(0, item);
+    this.addFirst(item);
   }
+}
+
+// represents a first in, first out collection
+class Queue<T> extends ARingCollection<T> {
+  // EFFECT: adds the item to the collection
+  public void add(T item) {
+    this.addLast(item);
+  }
+}
+
+// Represents a mutable collection of ints, such as cell indices
+interface IIntCollection {
+  // Is this collection empty?
+  boolean isEmpty();
+
+  // EFFECT: adds the item to the collection
+  void add(int item);
 
   // Returns the first item of the collection
   // EFFECT: removes that first item
-  public T remove() {
-    return this.contents.remove(0);
-  }
+  int remove();
 
+  // EFFECT: removes every item, keeping the room they took up
+  void clear();
 }
 
-class Queue<T> implements ICollection<T> {
-  ArrayList<T> contents;
+// represents a collection of ints kept in a growable circular array, the
+// primitive counterpart of ARingCollection
+abstract class AIntRingCollection implements IIntCollection {
+  // the items, starting at head and wrapping around; the length is a power of 2
+  int[] items;
+  // the index of the first item
+  int head;
+  // the number of items
+  int size;
 
-  Queue() {
-    this.contents = new ArrayList<T>();
+  // Constructor
+  AIntRingCollection() {
+    this.items = new int[16];
+    this.head = 0;
+    this.size = 0;
   }
 
-  @Override
+  // Is this collection empty?
   public boolean isEmpty() {
+    return this.size == 0;
+  }
 
-    return this.contents.isEmpty();
+  // Returns the first item of the collection
+  // EFFECT: removes that first item
+  public int remove() {
+    if (this.size == 0) {
+      throw new IndexOutOfBoundsException("Cannot remove from an empty collection");
+    }
+
+    int item = this.items[this.head];
+    this.head = (this.head + 1) & (this.items.length - 1);
+    this.size--;
+    return item;
   }
 
-  @Override
-  public void add(T item) {
-    this.contents.add(0, item);
+  // EFFECT: removes every item, keeping the room they took up
+  public void clear() {
+    this.head = 0;
+    this.size = 0;
+  }
 
+  // EFFECT: puts the item in front of the first item
+  void addFirst(int item) {
+    this.ensureRoom();
+    this.head = (this.head - 1) & (this.items.length - 1);
+    this.items[this.head] = item;
+    this.size++;
   }
 
-  @Override
-  public T remove() {
-    return this.contents.remove(this.contents.size() - 1);
+  // EFFECT: puts the item after the last item
+  void addLast(int item) {
+    this.ensureRoom();
+    this.items[(this.head + this.size) & (this.items.length - 1)] = item;
+    this.size++;
+  }
+
+  // EFFECT: doubles the array, unwrapping the items, if it is full
+  void ensureRoom() {
+    if (this.size == this.items.length) {
+      int[] bigger = new int[2 * this.items.length];
+      for (int i = 0; i < this.size; i++) {
+        bigger[i] = this.items[(this.head + i) & (this.items.length - 1)];
+      }
+      this.items = bigger;
+      this.head = 0;
+    }
+  }
+}
+
+// represents a last in, first out collection of ints
+class IntStack extends AIntRingCollection {
+  // EFFECT: adds the item to the collection
+  public void add(int item) {
+    this.addFirst(item);
+  }
+}
+
+// represents a first in, first out collection of ints
+class IntQueue extends AIntRingCollection {
+  // EFFECT: adds the item to the collection
+  public void add(int item) {
+    this.addLast(item);
   }
 }
 
@@ -562,7 +1208,7 @@ class ExamplesMaze {
     // new ArrayUtils().dfs(cellBoard);
 
     Maze game = new Maze(cellBoard, sortedEdgeBoard);
-    game.bigBang(Cell.CELL_SIZE * Maze.BOARD_WIDTH, Cell.CELL_SIZE * Maze.BOARD_HEIGHT, 0.1);
+    game.bigBang(Cell.CELL_SIZE * game.width, Cell.CELL_SIZE * game.height, 0.1);
   }
 
   // tests the drawCell method
@@ -692,6 +1338,49 @@ class ExamplesMaze {
 
   }
 
+  // tests that sort buckets small weights and merges wide ones, keeping equal
+  // weights in their original order
+  void testSortWeightRanges(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+
+    // connectBoard style weights, with plenty of ties
+    Edge a = new Edge(null, null, 3, true);
+    Edge b = new Edge(null, null, 0, true);
+    Edge c = new Edge(null, null, 3, true);
+    Edge d = new Edge(null, null, 9, true);
+    Edge e = new Edge(null, null, 0, true);
+    ArrayList<Edge> small = new ArrayList<Edge>(Arrays.asList(a, b, c, d, e));
+    util.sort(small, 0, small.size() - 1);
+    t.checkExpect(small.get(0) == b && small.get(1) == e, true);
+    t.checkExpect(small.get(2) == a && small.get(3) == c, true);
+    t.checkExpect(small.get(4) == d, true);
+
+    // only part of the list is sorted
+    ArrayList<Edge> part = new ArrayList<Edge>(Arrays.asList(d, a, b, e));
+    util.sort(part, 1, 2);
+    t.checkExpect(part, new ArrayList<Edge>(Arrays.asList(d, b, a, e)));
+
+    // weights far too spread out to count
+    Edge f = new Edge(null, null, Integer.MAX_VALUE, true);
+    Edge g = new Edge(null, null, Integer.MIN_VALUE, true);
+    Edge h = new Edge(null, null, 7, true);
+    Edge i = new Edge(null, null, Integer.MIN_VALUE, true);
+    ArrayList<Edge> wide = new ArrayList<Edge>(Arrays.asList(f, g, h, i, a));
+    util.sort(wide, 0, wide.size() - 1);
+    t.checkExpect(wide.get(0) == g && wide.get(1) == i, true);
+    t.checkExpect(wide.get(2) == a && wide.get(3) == h && wide.get(4) == f, true);
+
+    // a large board sorts without recursing
+    ArrayList<Cell> cellBoard = util.generateBoard(300, 300);
+    ArrayList<Edge> edgeBoard = util.connectBoard(cellBoard, 300, 300);
+    util.sort(edgeBoard, 0, edgeBoard.size() - 1);
+    boolean ordered = true;
+    for (int k = 1; k < edgeBoard.size(); k++) {
+      ordered = ordered && edgeBoard.get(k - 1).weight <= edgeBoard.get(k).weight;
+    }
+    t.checkExpect(ordered, true);
+  }
+
   // test the Kruskal method
   void testKruskal(Tester t) {
     ArrayUtils util = new ArrayUtils();
@@ -719,6 +1408,1340 @@ class ExamplesMaze {
 
   }
 
+  // tests the UnionFind class
+  void testUnionFind(Tester t) {
+    UnionFind sets = new UnionFind(5);
+    t.checkExpect(sets.components, 5);
+    t.checkExpect(sets.find(3), 3);
+
+    // merging two singletons
+    t.checkExpect(sets.union(0, 1), true);
+    t.checkExpect(sets.find(0), sets.find(1));
+    t.checkExpect(sets.components, 4);
+
+    // merging already joined indices does nothing
+    t.checkExpect(sets.union(1, 0), false);
+    t.checkExpect(sets.components, 4);
+
+    t.checkExpect(sets.union(2, 3), true);
+    t.checkExpect(sets.find(2) == sets.find(0), false);
+    t.checkExpect(sets.union(3, 1), true);
+    t.checkExpect(sets.find(2), sets.find(0));
+    t.checkExpect(sets.find(4), 4);
+    t.checkExpect(sets.components, 2);
+
+    // path compression leaves every index it walked pointing at its root
+    int root = sets.find(0);
+    for (int i = 0; i < 4; i++) {
+      sets.find(i);
+      t.checkExpect(sets.parent[i], root);
+    }
+
+    // a kruskal'd board opens exactly one fewer edge than it has cells
+    ArrayList<Cell> cellBoard = new ArrayUtils().generateBoard(20, 15);
+    ArrayList<Edge> edgeBoard = new ArrayUtils().connectBoard(cellBoard, 20, 15);
+    new ArrayUtils().kruskal(new ArrayUtils().sort(edgeBoard, 0, edgeBoard.size() - 1));
+    int open = 0;
+    for (Edge e : edgeBoard) {
+      if (!e.solid) {
+        open++;
+      }
+    }
+    t.checkExpect(open, 20 * 15 - 1);
+  }
+
+  // tests the CompactMaze class and the ArrayUtils methods that run on it
+  void testCompactMaze(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+
+    // +-------+
+    // | 0 1 2 |
+    // | 3 4 5 |
+    // +-------+
+    CompactMaze maze = new CompactMaze(3, 2);
+    t.checkExpect(maze.size(), 6);
+    t.checkExpect(maze.wallBits(4), CompactMaze.RIGHT_WALL | CompactMaze.BOTTOM_WALL);
+    t.checkExpect(maze.openNeighbor(0, CompactMaze.RIGHT), -1);
+
+    maze.openRight(0);
+    maze.openBottom(1);
+    t.checkExpect(maze.hasRightWall(0), false);
+    t.checkExpect(maze.hasBottomWall(0), true);
+    t.checkExpect(maze.hasLeftWall(1), false);
+    t.checkExpect(maze.hasTopWall(4), false);
+    t.checkExpect(maze.hasTopWall(1), true);
+    t.checkExpect(maze.openNeighbor(0, CompactMaze.RIGHT), 1);
+    t.checkExpect(maze.openNeighbor(1, CompactMaze.LEFT), 0);
+    t.checkExpect(maze.openNeighbor(1, CompactMaze.BOTTOM), 4);
+    t.checkExpect(maze.openNeighbor(4, CompactMaze.TOP), 1);
+    t.checkExpect(maze.openNeighbor(2, CompactMaze.RIGHT), -1);
+
+    // drawing a compact cell matches drawing the same Cell
+    Edge right = new Edge(null, null, 0, true);
+    Cell cell = new Cell(0, 0, null, null, right, null, 2, Cell.CELL_COLOR);
+    t.checkExpect(util.drawCell(new CompactMaze(3, 2), 0, Cell.CELL_COLOR), cell.drawCell());
+
+    // the compact form of a generated board keeps its walls and weights
+    ArrayList<Cell> cellBoard = util.generateBoard(4, 3);
+    ArrayList<Edge> edgeBoard = util.connectBoard(cellBoard, 4, 3);
+    util.kruskal(util.sort(edgeBoard, 0, edgeBoard.size() - 1));
+    CompactMaze fromCells = CompactMaze.fromBoard(cellBoard, 4, 3);
+    for (Cell c : cellBoard) {
+      t.checkExpect(fromCells.hasRightWall(c.id), c.rightEdge == null || c.rightEdge.solid);
+      t.checkExpect(fromCells.hasBottomWall(c.id), c.botEdge == null || c.botEdge.solid);
+    }
+    t.checkExpect(fromCells.weights[2 * 5 + 1], cellBoard.get(5).botEdge.weight);
+
+    // generating and solving a compact maze
+    CompactMaze big = util.connectBoard(40, 30, 7L);
+    t.checkExpect(util.sortEdgeIds(big).length, 39 * 30 + 40 * 29);
+    util.kruskal(big);
+    t.checkExpect(this.isPerfect(big), true);
+    // the outer right and bottom walls never come down
+    t.checkExpect(big.hasRightWall(39) && big.hasBottomWall(big.size() - 1), true);
+
+    int[] bfs = util.search(big, 0, big.size() - 1, false);
+    int[] dfs = util.search(big, 0, big.size() - 1, true);
+    t.checkExpect(bfs[big.size() - 1] != -1, true);
+    t.checkExpect(dfs[big.size() - 1] != -1, true);
+    t.checkExpect(bfs[0], 0);
+
+    // a Maze made from a compact maze draws it, on a scene its own size
+    CompactMaze small = util.connectBoard(2, 2, 3L);
+    util.kruskal(small);
+    t.checkExpect(new Maze(small).makeScene(), new MazeCanvas(small).drawOn(
+        new WorldScene(2 * Cell.CELL_SIZE, 2 * Cell.CELL_SIZE)));
+  }
+
+  // tests the MazeSearch class
+  void testMazeSearch(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze maze = util.connectBoard(30, 20, 11L);
+    util.kruskal(maze);
+
+    // a search sliced into small steps ends up where a one shot search does
+    MazeSearch sliced = new MazeSearch(maze, 0, maze.size() - 1, false);
+    t.checkExpect(sliced.step(3), false);
+    t.checkExpect(sliced.expanded, 3);
+    t.checkExpect(sliced.order[0], 0);
+    while (!sliced.step(7)) {
+      t.checkExpect(sliced.expanded % 7, 3);
+    }
+    t.checkExpect(sliced.found, true);
+    t.checkExpect(sliced.order[sliced.expanded - 1], maze.size() - 1);
+    t.checkExpect(util.parents(sliced.scratch), util.search(maze, 0, maze.size() - 1, false));
+
+    MazeSearch whole = new MazeSearch(maze, 0, maze.size() - 1, true);
+    t.checkExpect(whole.step(Integer.MAX_VALUE), true);
+    t.checkExpect(util.parents(whole.scratch), util.search(maze, 0, maze.size() - 1, true));
+
+    // stepping a finished search does nothing
+    int done = whole.expanded;
+    t.checkExpect(whole.step(5), true);
+    t.checkExpect(whole.expanded, done);
+  }
+
+  // tests both reconstruct methods
+  void testReconstruct(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+
+    // 0 - 1 - 2 with 3 hanging off 1, 4 never reached
+    int[] parent = new int[] { 0, 0, 1, 1, -1 };
+    t.checkExpect(util.reconstruct(parent, 0, 2), new int[] { 0, 1, 2 });
+    t.checkExpect(util.reconstruct(parent, 0, 3), new int[] { 0, 1, 3 });
+    t.checkExpect(util.reconstruct(parent, 0, 0), new int[] { 0 });
+    t.checkExpect(util.reconstruct(parent, 0, 4), new int[0]);
+
+    // every step of a solved path goes through an open wall
+    CompactMaze maze = util.connectBoard(25, 25, 5L);
+    util.kruskal(maze);
+    int[] path = util.reconstruct(util.search(maze, 0, maze.size() - 1, false), 0,
+        maze.size() - 1);
+    t.checkExpect(path[0], 0);
+    t.checkExpect(path[path.length - 1], maze.size() - 1);
+    boolean connected = true;
+    for (int i = 1; i < path.length; i++) {
+      boolean stepped = false;
+      for (int dir = CompactMaze.TOP; dir <= CompactMaze.LEFT; dir++) {
+        stepped = stepped || maze.openNeighbor(path[i - 1], dir) == path[i];
+      }
+      connected = connected && stepped;
+    }
+    t.checkExpect(connected, true);
+
+    // the Cell version walks the map back to the first cell
+    this.initConditions2x2();
+    HashMap<Cell, Cell> cameFrom = new HashMap<Cell, Cell>();
+    cameFrom.put(this.c2, this.c1);
+    cameFrom.put(this.c4, this.c2);
+    util.reconstruct(cameFrom, this.c4, this.c1);
+    t.checkExpect(this.c1.color, Color.BLACK);
+    t.checkExpect(this.c2.color, Color.BLACK);
+    t.checkExpect(this.c3.color, Cell.CELL_COLOR);
+    t.checkExpect(this.c4.color, Color.BLACK);
+  }
+
+  // tests the allocation free ways of finding a cell's neighbors
+  void testOpenNeighbors(Tester t) {
+    int[] out = new int[4];
+
+    // +-------+
+    // | 0 1 2 |
+    // | 3 4 5 |
+    // | 6 7 8 |
+    // +-------+
+    CompactMaze maze = new CompactMaze(3, 3);
+    t.checkExpect(maze.maxDegree(), 4);
+    t.checkExpect(maze.openNeighbors(4, out), 0);
+    maze.openBottom(1);
+    maze.openBottom(4);
+    maze.openRight(4);
+    maze.openRight(3);
+    t.checkExpect(maze.openNeighbors(4, out), 4);
+    t.checkExpect(out, new int[] { 1, 7, 5, 3 });
+    t.checkExpect(maze.openNeighbors(3, out), 1);
+    t.checkExpect(out[0], 4);
+
+    // the border walls never let a neighbor out of the board
+    maze.openRight(2);
+    maze.openBottom(8);
+    t.checkExpect(maze.openNeighbors(2, out), 0);
+    t.checkExpect(maze.openNeighbors(8, out), 0);
+
+    // the cursor agrees with openNeighbor in every direction
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze big = util.connectBoard(20, 20, 9L);
+    util.kruskal(big);
+    boolean same = true;
+    for (int i = 0; i < big.size(); i++) {
+      int count = big.openNeighbors(i, out);
+      int k = 0;
+      for (int dir = CompactMaze.TOP; dir <= CompactMaze.LEFT; dir++) {
+        int neighbor = big.openNeighbor(i, dir);
+        if (neighbor != -1) {
+          same = same && k < count && out[k] == neighbor;
+          k++;
+        }
+      }
+      same = same && k == count;
+    }
+    t.checkExpect(same, true);
+
+    // open edges of a Cell come out top, bottom, right, left
+    this.initConditions2x2();
+    Edge[] edges = new Edge[4];
+    Edge right = new Edge(this.c1, this.c2, 0, false);
+    Edge bot = new Edge(this.c1, this.c3, 0, false);
+    Edge closed = new Edge(this.c1, this.c3, 0, true);
+    Cell cell = new Cell(0, 0, null, bot, right, null, 0, Cell.CELL_COLOR);
+    t.checkExpect(cell.openEdges(edges), 2);
+    t.checkExpect(edges[0] == bot && edges[1] == right, true);
+    t.checkExpect(this.c2.isANeighbor(cell), true);
+    t.checkExpect(this.c4.isANeighbor(cell), false);
+    cell.botEdge = closed;
+    t.checkExpect(cell.openEdges(edges), 1);
+    t.checkExpect(this.c3.isANeighbor(cell), false);
+  }
+
+  // tests the dfs and depthFirstSearch methods on Cells
+  void testSearchCells(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    ArrayList<Cell> cellBoard = util.generateBoard(30, 30);
+    ArrayList<Edge> edgeBoard = util.connectBoard(cellBoard, 30, 30);
+    util.kruskal(util.sort(edgeBoard, 0, edgeBoard.size() - 1));
+
+    t.checkExpect(util.depthFirstSearch(cellBoard.get(0), cellBoard.get(899)), true);
+    t.checkExpect(util.depthFirstSearch(cellBoard.get(899), cellBoard.get(0)), true);
+    t.checkExpect(util.depthFirstSearch(cellBoard.get(0), new Cell(0, 0, 900)), false);
+
+    ArrayList<Cell> result = util.dfs(cellBoard);
+    t.checkExpect(result.get(result.size() - 1), cellBoard.get(899));
+    t.checkExpect(cellBoard.get(899).color, Color.WHITE);
+
+    // a large board is searched without any linear membership checks
+    ArrayList<Cell> bigBoard = util.generateBoard(300, 300);
+    ArrayList<Edge> bigEdges = util.connectBoard(bigBoard, 300, 300);
+    util.kruskal(util.sort(bigEdges, 0, bigEdges.size() - 1));
+    t.checkExpect(util.depthFirstSearch(bigBoard.get(0), bigBoard.get(bigBoard.size() - 1)),
+        true);
+    t.checkExpect(util.dfs(bigBoard).contains(bigBoard.get(bigBoard.size() - 1)), true);
+  }
+
+  // tests the A* and bidirectional searches against breadth first search
+  void testAStarAndBidirectional(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze maze = util.connectBoard(60, 40, 21L);
+    util.kruskal(maze);
+    int last = maze.size() - 1;
+
+    ASearch bfs = new MazeSearch(maze, 0, last, false);
+    ASearch astar = new AStarSearch(maze, 0, last);
+    ASearch both = new BidirectionalSearch(maze, 0, last);
+    int bfsCost = bfs.run();
+    int astarCost = astar.run();
+    int bothCost = both.run();
+
+    // a maze has only one path, so every solver finds the same one
+    t.checkExpect(astar.found && both.found, true);
+    t.checkExpect(astar.path(), bfs.path());
+    t.checkExpect(both.path(), bfs.path());
+    t.checkExpect(astarCost <= bfsCost, true);
+    t.checkExpect(bothCost <= bfsCost, true);
+    t.checkExpect(astar.expanded, astarCost);
+
+    // the heuristic is the Manhattan distance to the goal
+    AStarSearch corner = new AStarSearch(maze, last, 0);
+    t.checkExpect(corner.estimate(last), 59 + 39);
+    t.checkExpect(corner.estimate(61), 2);
+
+    // a search that starts at its goal
+    BidirectionalSearch same = new BidirectionalSearch(maze, 5, 5);
+    t.checkExpect(same.run(), 0);
+    t.checkExpect(same.path(), new int[] { 5 });
+
+    // stepping them a little at a time changes nothing
+    AStarSearch sliced = new AStarSearch(maze, 0, last);
+    while (!sliced.step(3)) {
+      t.checkExpect(sliced.expanded % 3, 0);
+    }
+    t.checkExpect(sliced.expanded, astarCost);
+
+    // the heap hands back values smallest key first
+    IntMinHeap heap = new IntMinHeap();
+    for (int i = 0; i < 40; i++) {
+      heap.add((i * 17) % 40, i);
+    }
+    long previous = -1;
+    boolean ordered = true;
+    while (!heap.isEmpty()) {
+      long key = (heap.remove() * 17) % 40;
+      ordered = ordered && key > previous;
+      previous = key;
+    }
+    t.checkExpect(ordered, true);
+    t.checkException(new IndexOutOfBoundsException("Cannot remove from an empty heap"), heap,
+        "remove");
+  }
+
+  // tests the LcaIndex class against searching
+  void testLcaIndex(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze maze = util.connectBoard(45, 35, 13L);
+    util.kruskal(maze);
+    LcaIndex index = new LcaIndex(maze, 0);
+    t.checkExpect(index.depth[0], 0);
+    t.checkExpect(index.lca(0, maze.size() - 1), 0);
+    t.checkExpect(index.distance(17, 17), 0);
+    t.checkExpect(index.path(17, 17), new int[] { 17 });
+
+    // every query agrees with a breadth first search between the same cells
+    Random rand = new Random(4);
+    for (int q = 0; q < 50; q++) {
+      int a = rand.nextInt(maze.size());
+      int b = rand.nextInt(maze.size());
+      int[] searched = util.reconstruct(util.search(maze, a, b, false), a, b);
+      t.checkExpect(index.path(a, b), searched);
+      t.checkExpect(index.distance(a, b), searched.length - 1);
+      t.checkExpect(index.distance(b, a), searched.length - 1);
+    }
+
+    // any jump skips at most as far as the cell's own depth
+    boolean valid = true;
+    for (int i = 0; i < maze.size(); i++) {
+      valid = valid && index.depth[index.jump[i]] <= index.depth[index.parent[i]];
+      valid = valid && index.ancestor(i, index.depth[index.jump[i]]) == index.jump[i];
+    }
+    t.checkExpect(valid, true);
+
+    // cells cut off from the root have no distance
+    CompactMaze walled = new CompactMaze(3, 1);
+    walled.openRight(0);
+    LcaIndex split = new LcaIndex(walled, 0);
+    t.checkExpect(split.distance(0, 1), 1);
+    t.checkExpect(split.distance(0, 2), -1);
+    t.checkExpect(split.path(2, 1), new int[0]);
+  }
+
+  // is the maze perfect: exactly one wall down for every cell but one, with
+  // every cell reachable from cell 0?
+  boolean isPerfect(CompactMaze maze) {
+    int open = 0;
+    for (int i = 0; i < maze.size(); i++) {
+      open += 2 - Integer.bitCount(maze.wallBits(i));
+    }
+    return open == maze.size() - 1 && new MazeSearch(maze, 0, -1, false).run() == maze.size();
+  }
+
+  // tests the ParallelGenerator class
+  void testParallelGenerator(Tester t) {
+    // bands start on a whole long of wall bits
+    TileLayout layout = new TileLayout(100, 90, 10);
+    t.checkExpect(layout.tileWidth, 10);
+    t.checkExpect(layout.bandHeight, 16);
+    t.checkExpect(layout.columns, 10);
+    t.checkExpect(layout.bands, 6);
+    t.checkExpect((layout.bandHeight * 100) % 32, 0);
+    t.checkExpect(layout.tileOf(0), 0);
+    t.checkExpect(layout.tileOf(16 * 100 + 25), 12);
+    t.checkExpect(new TileLayout(7, 5, 64).tiles(), 1);
+    t.checkConstructorException(new IllegalArgumentException("Tiles must be at least 2 cells wide"),
+        "ParallelGenerator", 1, ForkJoinPool.commonPool());
+
+    // whatever the shape, the result is a perfect maze: every cell is reached,
+    // and there is exactly one fewer open wall than cells
+    int[][] shapes = new int[][] { { 1, 1 }, { 1, 50 }, { 50, 1 }, { 33, 47 }, { 200, 130 } };
+    for (int[] shape : shapes) {
+      for (int tileSize : new int[] { 2, 5, 64 }) {
+        CompactMaze maze = new ParallelGenerator(tileSize, ForkJoinPool.commonPool())
+            .generate(shape[0], shape[1], shape[0] * tileSize);
+        t.checkExpect(this.isPerfect(maze), true);
+      }
+    }
+  }
+
+  // tests that generating from a seed is reproducible
+  void testSeededGeneration(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    ArrayList<Edge> first = util.connectBoard(util.generateBoard(12, 9), 12, 9, 42L);
+    ArrayList<Edge> again = util.connectBoard(util.generateBoard(12, 9), 12, 9, 42L);
+    boolean same = first.size() == again.size();
+    for (int i = 0; same && i < first.size(); i++) {
+      same = first.get(i).weight == again.get(i).weight;
+    }
+    t.checkExpect(same, true);
+
+    // every generator makes the same walls from the same seed, and others
+    // from another seed
+    for (int generator : new int[] { MazeFile.KRUSKAL, MazeFile.PARALLEL, MazeFile.ELLER }) {
+      CompactMaze maze = util.generate(130, 70, 5L, generator);
+      t.checkExpect(util.generate(130, 70, 5L, generator).walls, maze.walls);
+      t.checkExpect(Arrays.equals(util.generate(130, 70, 6L, generator).walls, maze.walls),
+          false);
+      t.checkExpect(new MazeSearch(maze, 0, -1, false).run(), maze.size());
+    }
+
+    // the bands of a parallel maze come out the same on any number of workers
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    t.checkExpect(new ParallelGenerator(8, one).generate(200, 150, 9L).walls,
+        new ParallelGenerator(8, four).generate(200, 150, 9L).walls);
+    one.shutdown();
+    four.shutdown();
+
+    t.checkException(new IllegalArgumentException("Unknown generator: 7"), util, "generate",
+        3, 3, 0L, 7);
+  }
+
+  // tests the EllerGenerator class
+  void testEllerGenerator(Tester t) {
+    t.checkConstructorException(new IllegalArgumentException("A maze needs at least one column"),
+        "EllerGenerator", 0, 0L);
+
+    // every shape comes out a perfect maze
+    int[][] shapes = new int[][] { { 1, 1 }, { 1, 30 }, { 30, 1 }, { 37, 29 }, { 64, 64 } };
+    for (int[] shape : shapes) {
+      CompactMaze maze = new EllerGenerator(shape[0], shape[1]).generate(shape[1]);
+      t.checkExpect(this.isPerfect(maze), true);
+    }
+
+    // rows stream out one at a time, in order, without the maze in memory
+    long[] seen = new long[3];
+    IRowSink counter = new IRowSink() {
+      public void acceptRow(long y, long[] walls) {
+        seen[0] += (y == seen[1]) ? 1 : 0;
+        seen[1] = y + 1;
+        for (int x = 0; x < 5; x++) {
+          seen[2] += 2 - Long.bitCount((walls[0] >>> (2 * x)) & 3);
+        }
+      }
+    };
+    new EllerGenerator(5, 8L).generate(20000L, counter);
+    t.checkExpect(seen[0], 20000L);
+    t.checkExpect(seen[2], 5L * 20000 - 1);
+    t.checkException(new IllegalArgumentException("A maze needs at least one row"),
+        new EllerGenerator(5, 0L), "generate", 0L, counter);
+  }
+
+  // tests writing, streaming and mapping maze files
+  void testMazeFile(Tester t) throws IOException {
+    MazeFile files = new MazeFile();
+    t.checkExpect(files.bitmapSize(3, 3), 8L);
+    t.checkExpect(files.bitmapSize(32, 2), 16L);
+    t.checkExpect(files.header(5, 6L, 7L, MazeFile.ELLER).getInt(0), MazeFile.MAGIC);
+
+    // a written maze maps back with the same walls, and can be solved there
+    CompactMaze maze = new ParallelGenerator().generate(70, 45, 99L);
+    Path path = Files.createTempFile("maze", ".bin");
+    files.write(maze, 99L, MazeFile.PARALLEL, path);
+    t.checkExpect(Files.size(path), 32L + (70 * 45 + 31) / 32 * 8);
+    MappedMaze mapped = files.open(path, false);
+    t.checkExpect(mapped.width, 70);
+    t.checkExpect(mapped.height, 45);
+    t.checkExpect(mapped.seed, 99L);
+    t.checkExpect(mapped.generator, MazeFile.PARALLEL);
+    t.checkExpect(new ArrayUtils().generate(mapped.width, mapped.height, mapped.seed,
+        mapped.generator).walls, maze.walls);
+    boolean same = true;
+    for (int i = 0; i < maze.size(); i++) {
+      same = same && mapped.wallBits(i) == maze.wallBits(i);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(new MazeSearch(mapped, 0, mapped.size() - 1, false).path(),
+        new MazeSearch(maze, 0, maze.size() - 1, false).path());
+    t.checkExpect(new AStarSearch(mapped, 0, mapped.size() - 1).run() > 0, true);
+
+    // knocking down walls in a writable maze changes the file
+    MappedMaze writable = files.open(path, true);
+    writable.openRight(0);
+    writable.openBottom(0);
+    t.checkExpect(files.open(path, false).wallBits(0), 0);
+
+    // streamed rows land in the same format
+    Path streamed = Files.createTempFile("maze", ".bin");
+    MazeFileWriter writer = new MazeFileWriter(streamed, 37, 300L, 5L, MazeFile.ELLER);
+    new EllerGenerator(37, 5L).generate(300L, writer);
+    writer.close();
+    CompactMaze inMemory = new EllerGenerator(37, 5L).generate(300);
+    MappedMaze reread = files.open(streamed, false);
+    same = true;
+    for (int i = 0; i < inMemory.size(); i++) {
+      same = same && reread.wallBits(i) == inMemory.wallBits(i);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(reread.wallWord(reread.size() / 32), inMemory.wallWord(inMemory.size() / 32));
+
+    // rows must come in order, and all of them
+    MazeFileWriter partial = new MazeFileWriter(streamed, 4, 2L, 0L, MazeFile.ELLER);
+    t.checkException(new IllegalStateException("Rows must be written in order"), partial,
+        "acceptRow", 1L, new long[1]);
+    partial.acceptRow(0L, new long[] { -1L });
+    t.checkException(new IllegalStateException("Only 1 of 2 rows were written"), partial,
+        "close");
+
+    // other files are turned away
+    Files.write(path, new byte[40]);
+    t.checkException(new IOException("Not a maze file: " + path), files, "open", path, false);
+
+    // and so are headers with no cells in them
+    for (long[] size : new long[][] { { 0, 5 }, { 4, -1 } }) {
+      ByteBuffer header = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MazeFile.MAGIC).putInt(MazeFile.VERSION).putInt((int) size[0])
+          .putInt(MazeFile.KRUSKAL).putLong(size[1]).putLong(0L);
+      Files.write(path, header.array());
+      t.checkException(new IOException("Corrupt maze header: " + path), files, "open", path,
+          false);
+    }
+
+    // a maze with more cells than a file may hold is neither written nor opened
+    long tooTall = MazeFile.MAX_CELLS / 1000 + 1;
+    t.checkExpect(files.fits(1000, tooTall - 1), true);
+    t.checkExpect(files.fits(1000, tooTall), false);
+    t.checkConstructorException(new IllegalArgumentException("A maze file can hold at most "
+        + MazeFile.MAX_CELLS + " cells, not 1000 x " + tooTall), "MazeFileWriter", streamed,
+        1000, tooTall, 0L, MazeFile.ELLER);
+    Files.write(path, files.header(1000, tooTall, 0L, MazeFile.ELLER).array());
+    t.checkException(new IOException("Maze too large to map: " + path), files, "open", path,
+        false);
+
+    Files.delete(path);
+    Files.delete(streamed);
+  }
+
+  // tests that onTick animates the search a few cells at a time
+  void testOnTick(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    ArrayList<Cell> cellBoard = util.generateBoard(Maze.BOARD_WIDTH, Maze.BOARD_HEIGHT);
+    ArrayList<Edge> edgeBoard = util.connectBoard(cellBoard, Maze.BOARD_WIDTH,
+        Maze.BOARD_HEIGHT);
+    util.kruskal(util.sort(edgeBoard, 0, edgeBoard.size() - 1));
+    Maze game = new Maze(cellBoard, edgeBoard);
+
+    // nothing happens before a search is picked
+    game.onTick();
+    t.checkExpect(game.search, null);
+
+    game.onKeyEvent("b");
+    game.onKeyEvent("up");
+    t.checkExpect(game.cellsPerTick, 2);
+    game.onTick();
+    t.checkExpect(game.search.expanded, 2);
+    t.checkExpect(cellBoard.get(0).color, Maze.SEARCH_COLOR);
+    game.onTick();
+    t.checkExpect(game.colored, 4);
+
+    // switching searches uncolors the old one
+    game.onKeyEvent("d");
+    t.checkExpect(game.search, null);
+    t.checkExpect(cellBoard.get(0).color, Cell.CELL_COLOR);
+
+    for (int i = 0; i < Maze.BOARD_WIDTH * Maze.BOARD_HEIGHT; i++) {
+      game.onTick();
+    }
+    t.checkExpect(game.search.found, true);
+
+    // the solution is marked once the search finds the last cell
+    t.checkExpect(game.solution, util.reconstruct(game.search.scratch, 0, cellBoard.size() - 1));
+    int[] solution = game.solution;
+    for (int i : game.solution) {
+      t.checkExpect(cellBoard.get(i).color, Maze.PATH_COLOR);
+    }
+    t.checkExpect(cellBoard.get(cellBoard.size() - 1).color, Maze.PATH_COLOR);
+
+    // and uncolored with the rest of the search
+    game.onKeyEvent("b");
+    t.checkExpect(game.solution, null);
+    t.checkExpect(cellBoard.get(cellBoard.size() - 1).color, Cell.CELL_COLOR);
+
+    // the other searches are picked the same way and find the same solution
+    game.onKeyEvent("a");
+    t.checkExpect(game.searchAlgo, 3);
+    game.cellsPerTick = cellBoard.size();
+    game.onTick();
+    t.checkExpect(game.search instanceof AStarSearch, true);
+    t.checkExpect(game.solution, solution);
+    game.onKeyEvent("t");
+    game.onTick();
+    t.checkExpect(game.search instanceof BidirectionalSearch, true);
+    t.checkExpect(game.solution, solution);
+    game.onKeyEvent("x");
+    t.checkExpect(game.searchAlgo, 4);
+
+    // speeding up stops at every cell instead of overflowing, so the search
+    // still runs
+    game.onKeyEvent("b");
+    for (int i = 0; i < 40; i++) {
+      game.onKeyEvent("up");
+    }
+    t.checkExpect(game.cellsPerTick, cellBoard.size());
+    game.onTick();
+    t.checkExpect(game.search.found, true);
+    t.checkExpect(game.solution, solution);
+    game.onKeyEvent("down");
+    t.checkExpect(game.cellsPerTick, cellBoard.size() / 2);
+  }
+
+  // tests that Mazes of different sizes can be made and solved at the same
+  // time, since each carries its own size and ArrayUtils shares nothing
+  void testConcurrentMazes(Tester t) throws Exception {
+    int[][] sizes = new int[][] { { 10, 10 }, { 7, 13 }, { 30, 4 }, { 1, 25 }, { 16, 16 } };
+    ArrayList<Callable<int[]>> jobs = new ArrayList<Callable<int[]>>();
+    for (int[] size : sizes) {
+      jobs.add(new Callable<int[]>() {
+        public int[] call() {
+          ArrayUtils util = new ArrayUtils();
+          ArrayList<Cell> board = util.generateBoard(size[0], size[1]);
+          ArrayList<Edge> edges = util.connectBoard(board, size[0], size[1], 5L);
+          util.kruskal(util.sort(edges, 0, edges.size() - 1));
+          Maze game = new Maze(board, edges, size[0], size[1]);
+          game.onKeyEvent("b");
+          game.cellsPerTick = board.size();
+          game.onTick();
+          return game.solution;
+        }
+      });
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(sizes.length);
+    List<Future<int[]>> solutions = pool.invokeAll(jobs);
+    pool.shutdown();
+    for (int k = 0; k < sizes.length; k++) {
+      t.checkExpect(solutions.get(k).get(), jobs.get(k).call());
+      t.checkExpect(solutions.get(k).get()[0], 0);
+      t.checkExpect(solutions.get(k).get()[solutions.get(k).get().length - 1],
+          sizes[k][0] * sizes[k][1] - 1);
+    }
+
+    // each Maze is drawn at its own size
+    Maze wide = new Maze(new ArrayUtils().generateBoard(30, 4), new ArrayList<Edge>(), 30, 4);
+    t.checkExpect(wide.makeScene().width, 30 * Cell.CELL_SIZE);
+    t.checkExpect(wide.grid().height, 4);
+  }
+
+  // tests the off-heap maze and the scratch spaces searches keep
+  void testOffHeapMaze(Tester t) {
+    ISearchScratch[] kinds = new ISearchScratch[] { new HeapScratch(5), new StampedScratch(5),
+        new OffHeapScratch(5) };
+    for (ISearchScratch scratch : kinds) {
+      t.checkExpect(scratch.size(), 5);
+      t.checkExpect(scratch.isVisited(3), false);
+      scratch.visit(3, 0);
+      scratch.visit(0, 0);
+      t.checkExpect(scratch.isVisited(3), true);
+      t.checkExpect(scratch.parent(3), 0);
+      t.checkExpect(new ArrayUtils().reconstruct(scratch, 0, 3), new int[] { 0, 3 });
+      scratch.reset();
+      t.checkExpect(scratch.isVisited(3), false);
+    }
+
+    // off the heap, a reset only clears the words a search touched
+    OffHeapScratch sparse = new OffHeapScratch(1000);
+    sparse.visit(5, 5);
+    sparse.visit(6, 5);
+    sparse.visit(700, 6);
+    t.checkExpect(sparse.dirtyWords, 2);
+    sparse.reset();
+    t.checkExpect(sparse.dirtyWords, 0);
+    t.checkExpect(sparse.isVisited(5) || sparse.isVisited(6) || sparse.isVisited(700), false);
+    sparse.visit(999, 0);
+    t.checkExpect(sparse.isVisited(999), true);
+    t.checkExpect(sparse.dirtyWords, 1);
+
+    // an off-heap maze starts walled in, and generators fill it in place
+    OffHeapMaze maze = new OffHeapMaze(70, 45);
+    t.checkExpect(maze.wallBits(3), AGridMaze.RIGHT_WALL | AGridMaze.BOTTOM_WALL);
+    t.checkExpect(maze.newScratch() instanceof OffHeapScratch, true);
+    new ParallelGenerator(16, ForkJoinPool.commonPool()).generate(maze, 4L);
+    CompactMaze copy = new CompactMaze(70, 45);
+    for (int i = 0; i < maze.size(); i++) {
+      if (!maze.hasRightWall(i)) {
+        copy.openRight(i);
+      }
+      if (!maze.hasBottomWall(i)) {
+        copy.openBottom(i);
+      }
+    }
+    t.checkExpect(maze.wallWord(7), copy.wallWord(7));
+    t.checkExpect(new LcaIndex(maze, 0).depth[maze.size() - 1] > 0, true);
+
+    // every solver finds the same path in it as in the heap copy
+    ArrayUtils util = new ArrayUtils();
+    int[] path = util.reconstruct(util.search(copy, 0, copy.size() - 1, false), 0,
+        copy.size() - 1);
+    ASearch[] searches = new ASearch[] { new MazeSearch(maze, 0, maze.size() - 1, false),
+        new MazeSearch(maze, 0, maze.size() - 1, true),
+        new AStarSearch(maze, 0, maze.size() - 1),
+        new BidirectionalSearch(maze, 0, maze.size() - 1) };
+    for (ASearch search : searches) {
+      t.checkExpect(search.path(), new int[0]);
+      search.run();
+      t.checkExpect(search.path(), path);
+    }
+    t.checkExpect(path.length > 70 + 45 - 2, true);
+
+    // an untracked search keeps no order
+    ASearch untracked = new MazeSearch(maze, 0, maze.size() - 1, false).untracked();
+    t.checkExpect(untracked.run(), new MazeSearch(copy, 0, copy.size() - 1, false).run());
+    t.checkExpect(untracked.order, null);
+
+    // Eller's rows land in it the same way
+    OffHeapMaze streamed = new OffHeapMaze(37, 30);
+    new EllerGenerator(37, 5L).generate(30L, new GridRowSink(streamed));
+    CompactMaze inMemory = new EllerGenerator(37, 5L).generate(30);
+    t.checkExpect(streamed.wallWord(20), inMemory.wallWord(20));
+
+    // every generator, Kruskal's included, makes the same maze off the heap
+    // from the same seed
+    for (int generator = MazeFile.KRUSKAL; generator <= MazeFile.ELLER; generator++) {
+      OffHeapMaze offHeap = new OffHeapMaze(45, 33);
+      util.generate(offHeap, 8L, generator);
+      CompactMaze onHeap = util.generate(45, 33, 8L, generator);
+      for (int k = 0; k < onHeap.walls.length; k++) {
+        t.checkExpect(offHeap.wallWord(k), onHeap.walls[k]);
+      }
+    }
+  }
+
+  // tests the ParallelBfs class
+  void testParallelBfs(Tester t) {
+    CompactMaze maze = new ParallelGenerator().generate(90, 70, 6L);
+    // in a perfect maze the depth of a rooted tree is the breadth first distance
+    int[] expected = new LcaIndex(maze, 37).depth;
+    ForkJoinPool pool = new ForkJoinPool(4);
+    for (int grain : new int[] { 1, 3, ParallelBfs.GRAIN, 1024 }) {
+      ParallelBfs bfs = new ParallelBfs(maze, pool, grain);
+      t.checkExpect(bfs.run(37), expected);
+      int deepest = 0;
+      for (int d : expected) {
+        deepest = Math.max(deepest, d);
+      }
+      t.checkExpect(bfs.levels, deepest + 1);
+    }
+    pool.shutdown();
+
+    // a pool of one worker expands every level itself, to the same distances
+    ForkJoinPool single = new ForkJoinPool(1);
+    t.checkExpect(new ParallelBfs(maze, single, 1).run(37), expected);
+    single.shutdown();
+
+    // cells behind walls are never reached
+    CompactMaze walled = new CompactMaze(3, 2);
+    walled.openRight(0);
+    t.checkExpect(new ParallelBfs(walled).run(1), new int[] { 1, 0, -1, -1, -1, -1 });
+    t.checkConstructorException(new IllegalArgumentException(
+        "A chunk must hold at least one cell"), "ParallelBfs", maze, pool, 0);
+  }
+
+  // tests the SolverWorkspace and StampedScratch classes
+  void testSolverWorkspace(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze maze = util.connectBoard(40, 25, 17L);
+    util.kruskal(maze);
+
+    // searches one after another in one workspace match searches made fresh
+    SolverWorkspace workspace = new SolverWorkspace(maze);
+    ISearchScratch scratch = workspace.scratch;
+    int[][] ends = new int[][] { { 0, 999 }, { 500, 3 }, { 77, 77 }, { 999, 0 } };
+    for (int[] end : ends) {
+      for (int algo = 1; algo <= 4; algo++) {
+        // each search takes the workspace over, so it is made just before it runs
+        ASearch search;
+        if (algo == 3) {
+          search = new AStarSearch(maze, end[0], end[1], workspace);
+        }
+        else if (algo == 4) {
+          search = new BidirectionalSearch(maze, end[0], end[1], workspace);
+        }
+        else {
+          search = new MazeSearch(maze, end[0], end[1], algo == 1, workspace);
+        }
+        search.run();
+        t.checkExpect(search.path(), new LcaIndex(maze, end[0]).path(end[0], end[1]));
+        t.checkExpect(search.scratch, scratch);
+      }
+    }
+    t.checkExpect(workspace.backward == null, false);
+
+    // a search that finds its goal early leaves nothing behind for the next
+    MazeSearch first = new MazeSearch(maze, 0, 1, false, workspace);
+    first.run();
+    MazeSearch second = new MazeSearch(maze, 0, 999, false, workspace);
+    t.checkExpect(second.scratch.isVisited(1), false);
+    t.checkExpect(second.run(), new MazeSearch(maze, 0, 999, false).run());
+
+    // stamps are only cleared when the generations run out
+    StampedScratch stamped = new StampedScratch(3);
+    stamped.visit(2, 1);
+    stamped.reset();
+    t.checkExpect(stamped.isVisited(2), false);
+    t.checkExpect(stamped.generation, 2);
+    stamped.generation = Integer.MAX_VALUE;
+    stamped.visit(1, 0);
+    stamped.reset();
+    t.checkExpect(stamped.generation, 1);
+    t.checkExpect(stamped.stamps, new int[3]);
+
+    // the Maze keeps one workspace for all of its searches
+    Maze game = new Maze(maze);
+    game.onKeyEvent("d");
+    game.onTick();
+    SolverWorkspace owned = game.workspace;
+    game.onKeyEvent("t");
+    game.cellsPerTick = maze.size();
+    game.onTick();
+    t.checkExpect(game.workspace == owned, true);
+    t.checkExpect(game.solution, new LcaIndex(maze, 0).path(0, maze.size() - 1));
+  }
+
+  // tests the MazeCanvas class
+  void testMazeCanvas(Tester t) {
+    // cell 0 is open to the right and closed below, cell 1 has its right wall
+    // on the border, cell 2 gets a top wall from cell 0's bottom wall
+    CompactMaze maze = new CompactMaze(2, 2);
+    maze.openRight(0);
+    maze.openBottom(1);
+    maze.openRight(2);
+    MazeCanvas canvas = new MazeCanvas(maze, 4);
+    t.checkExpect(canvas.width(), 8);
+    t.checkExpect(canvas.height(), 8);
+    t.checkExpect(canvas.image.getPixel(3, 0), Cell.CELL_COLOR);
+    t.checkExpect(canvas.image.getPixel(7, 2), Cell.CELL_COLOR);
+    t.checkExpect(canvas.image.getPixel(1, 4), Cell.WALL_COLOR);
+    t.checkExpect(canvas.image.getPixel(5, 4), Cell.CELL_COLOR);
+    t.checkExpect(canvas.image.getPixel(3, 6), Cell.CELL_COLOR);
+
+    // repainting a cell keeps its walls and leaves its neighbors alone
+    canvas.paint(2, Color.BLUE);
+    t.checkExpect(canvas.image.getPixel(1, 4), Cell.WALL_COLOR);
+    t.checkExpect(canvas.image.getPixel(1, 5), Color.BLUE);
+    t.checkExpect(canvas.image.getPixel(5, 5), Cell.CELL_COLOR);
+
+    // the Maze draws one canvas for its whole life, painting it as it searches
+    Maze game = new Maze(maze);
+    WorldScene first = game.makeScene();
+    MazeCanvas drawn = game.canvas;
+    game.onKeyEvent("b");
+    game.cellsPerTick = 4;
+    game.onTick();
+    t.checkExpect(game.canvas == drawn, true);
+    t.checkExpect(drawn.image.getPixel(Cell.CELL_SIZE + 5, Cell.CELL_SIZE + 5), Maze.PATH_COLOR);
+    t.checkExpect(game.makeScene(), first);
+    game.onKeyEvent("d");
+    t.checkExpect(drawn.image.getPixel(5, 5), Cell.CELL_COLOR);
+  }
+
+  // tests the MazeViewport class
+  void testMazeViewport(Tester t) {
+    CompactMaze maze = new ParallelGenerator().generate(1000, 1000, 3L);
+    MazeViewport view = new MazeViewport(maze, 200, 100);
+    // zoomed out until all 1000 rows fit in 100 pixels, 16 cells to a pixel
+    t.checkExpect(view.zoom, -4);
+    t.checkExpect(view.cellsPerPixel(), 16);
+    t.checkExpect(view.image.getPixel(62, 62), Cell.CELL_COLOR);
+    t.checkExpect(view.image.getPixel(63, 62), MazeViewport.OUTSIDE);
+
+    // a pixel shows the latest color among its cells
+    view.paint(1, Color.BLUE);
+    t.checkExpect(view.image.getPixel(0, 0), Color.BLUE);
+    view.paint(1000 * 15 + 15, Color.WHITE);
+    view.paint(2, Color.BLUE);
+    t.checkExpect(view.image.getPixel(0, 0), Color.WHITE);
+    t.checkExpect(view.image.getPixel(1, 0), Cell.CELL_COLOR);
+    view.zoomBy(-1);
+    t.checkExpect(view.zoom, -4);
+
+    // zoomed all the way in, cells are squares with their walls, and the
+    // window never leaves the maze
+    view.zoomBy(20);
+    t.checkExpect(view.zoom, MazeViewport.MAX_ZOOM);
+    t.checkExpect(view.columns(), 7);
+    t.checkExpect(view.rows(), 4);
+    view.pan(-5000, -5000);
+    t.checkExpect(view.left, 0);
+    t.checkExpect(view.top, 0);
+    t.checkExpect(view.image.getPixel(3, 3), Cell.CELL_COLOR);
+    t.checkExpect(view.image.getPixel(35, 3), Color.BLUE);
+    t.checkExpect(view.image.getPixel(31, 5), maze.hasRightWall(0) ? Cell.WALL_COLOR
+        : Cell.CELL_COLOR);
+    t.checkExpect(view.image.getPixel(5, 32), maze.hasBottomWall(0) ? Cell.WALL_COLOR
+        : Cell.CELL_COLOR);
+    view.pan(5000, 5000);
+    t.checkExpect(view.left, 1000 - 7);
+    t.checkExpect(view.top, 1000 - 4);
+    view.centerOn(0, 0);
+    t.checkExpect(view.left, 1000 - 7 - 3);
+    t.checkExpect(view.top, 1000 - 4 - 2);
+    t.checkConstructorException(new IllegalArgumentException(
+        "A viewport needs at least one pixel"), "MazeViewport", maze, 0, 10);
+
+    // at two pixels a cell the walls are still drawn as lines
+    view.zoomBy(MazeViewport.WALL_ZOOM - view.zoom);
+    view.pan(-5000, -5000);
+    t.checkExpect(view.image.getPixel(1, 1), maze.hasRightWall(0) ? Cell.WALL_COLOR
+        : Cell.CELL_COLOR);
+    t.checkExpect(view.image.getPixel(0, 1), Cell.CELL_COLOR);
+    t.checkExpect(view.image.getPixel(2, 1), Color.BLUE);
+    // and at one pixel a cell, unpainted cells are shaded by their walls
+    view.zoomBy(-1);
+    t.checkExpect(view.zoom, 0);
+    t.checkExpect(view.image.getPixel(1, 0), Color.BLUE);
+    t.checkExpect(view.image.getPixel(3, 0), MazeViewport.WALL_SHADES[view.standingWalls(3)]);
+    t.checkExpect(view.standingWalls(3), 4 - maze.openNeighbors(3, new int[4]));
+    boolean shaded = false;
+    for (int x = 0; x < 200; x++) {
+      shaded = shaded || view.image.getPixel(x, 50) != view.image.getPixel(0, 50);
+    }
+    t.checkExpect(shaded, true);
+    t.checkExpect(view.image.getPixel(3, 0) == Cell.CELL_COLOR, view.standingWalls(3) == 0);
+    CompactMaze walled = new CompactMaze(3, 3);
+    t.checkExpect(new MazeViewport(walled, 3, 3).image.getPixel(1, 1),
+        MazeViewport.WALL_SHADES[4]);
+
+    // a Maze with a viewport draws only the window, and pans and zooms it
+    Maze game = new Maze(maze, 300, 200);
+    t.checkExpect(game.makeScene(), game.viewport.drawOn(new WorldScene(300, 200)));
+    int zoom = game.viewport.zoom;
+    game.onKeyEvent("+");
+    game.onKeyEvent("=");
+    t.checkExpect(game.viewport.zoom, zoom + 2);
+    int start = game.viewport.left;
+    game.onKeyEvent("h");
+    t.checkExpect(game.viewport.left, start - game.viewport.columns() / 4);
+    game.onKeyEvent("l");
+    t.checkExpect(game.viewport.left, start);
+    game.onMouseClicked(new Posn(299, 199));
+    t.checkExpect(game.viewport.top > 0, true);
+    game.onKeyEvent("b");
+    game.onTick();
+    t.checkExpect(game.viewport.shades[0], (byte) 1);
+  }
+
+  // tests the MazeBatch class
+  void testMazeBatch(Tester t) throws IOException {
+    Path dir = Files.createTempDirectory("batch");
+    MazeBatch batch = new MazeBatch(new String[] { "--count", "3", "--width", "30", "--height",
+        "20", "--seed", "40", "--generator", "eller", "--solver", "astar", "--threads", "2",
+        "--out", dir.toString() });
+    t.checkExpect(batch.generator, MazeFile.ELLER);
+    t.checkExpect(batch.solver, 3);
+    batch.run();
+
+    // one line per maze, in seed order, and a file each that can be made again
+    List<String> lines = Files.readAllLines(dir.resolve("timings.csv"));
+    t.checkExpect(lines.size(), 4);
+    t.checkExpect(lines.get(0), MazeBatch.CSV_HEADER);
+    for (int k = 0; k < 3; k++) {
+      String[] fields = lines.get(k + 1).split(",");
+      t.checkExpect(fields[0], Integer.toString(40 + k));
+      t.checkExpect(fields[9], "maze-" + (40 + k) + ".bin");
+      MappedMaze saved = new MazeFile().open(dir.resolve(fields[9]), false);
+      CompactMaze again = new ArrayUtils().generate(30, 20, saved.seed, saved.generator);
+      t.checkExpect(saved.wallWord(5), again.wallWord(5));
+      t.checkExpect(fields[8], Integer.toString(new LcaIndex(again, 0).distance(0, 599) + 1));
+      t.checkExpect(fields[13], Integer.toString(new LcaIndex(again, 0).distance(0, 599)));
+    }
+
+    // defaults, and arguments that make no sense
+    t.checkExpect(new MazeBatch(new String[0]).count, 10);
+    t.checkConstructorException(new IllegalArgumentException("Every option needs a value"),
+        "MazeBatch", (Object) new String[] { "--count" });
+    t.checkConstructorException(new IllegalArgumentException("Unknown option: --size"),
+        "MazeBatch", (Object) new String[] { "--size", "3" });
+    t.checkConstructorException(new IllegalArgumentException("--width must be positive"),
+        "MazeBatch", (Object) new String[] { "--width", "0" });
+    t.checkConstructorException(new IllegalArgumentException(
+        "--solver must be one of [dfs, bfs, astar, bidirectional]"), "MazeBatch",
+        (Object) new String[] { "--solver", "dijkstra" });
+  }
+
+  // tests the measurements of a maze's structure
+  void testMazeAnalytics(Tester t) {
+    // 0 - 1 - 2    two spurs off each of the junctions 1 and 4
+    //     |
+    // 3 - 4 - 5
+    CompactMaze forked = new CompactMaze(3, 2);
+    forked.openRight(0);
+    forked.openRight(1);
+    forked.openBottom(1);
+    forked.openRight(3);
+    forked.openRight(4);
+    MazeAnalytics stats = new MazeAnalytics(forked);
+    t.checkExpect(stats.deadEnds, 4);
+    t.checkExpect(stats.junctions, 2);
+    t.checkExpect(stats.solutionLength, 3);
+    t.checkExpect(stats.diameter, 3);
+    t.checkExpect(new LcaIndex(forked, 0).distance(stats.diameterStart, stats.diameterEnd), 3);
+    t.checkExpect(stats.riverFactor, 1.0);
+    t.checkExpect(stats.csv(), "3,4,2,3,1.000");
+
+    // 0 - 1 - 2    one passage through every cell
+    //         |
+    // 3 - 4 - 5
+    CompactMaze snake = new CompactMaze(3, 2);
+    snake.openRight(0);
+    snake.openRight(1);
+    snake.openBottom(2);
+    snake.openRight(3);
+    snake.openRight(4);
+    stats = new MazeAnalytics(snake);
+    t.checkExpect(stats.deadEnds, 2);
+    t.checkExpect(stats.junctions, 0);
+    t.checkExpect(stats.solutionLength, 3);
+    t.checkExpect(stats.diameter, 5);
+    t.checkExpect(stats.riverFactor, 6.0);
+
+    // a single cell, and cells that cannot reach each other
+    stats = new MazeAnalytics(new CompactMaze(1, 1));
+    t.checkExpect(stats.diameter, 0);
+    t.checkExpect(stats.solutionLength, 0);
+    t.checkExpect(stats.riverFactor, 0.0);
+    t.checkExpect(new MazeAnalytics(new CompactMaze(2, 1)).solutionLength, -1);
+
+    // a corpus measured on a pool gets the same measurements as one at a time
+    ArrayUtils util = new ArrayUtils();
+    IMazeGraph[] corpus = new IMazeGraph[300];
+    for (int k = 0; k < corpus.length; k++) {
+      corpus[k] = util.generate(5 + k % 7, 4 + k % 5, k, k % 3);
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    MazeAnalytics[] all = util.analyze(corpus, pool);
+    pool.shutdown();
+    for (int k = 0; k < corpus.length; k++) {
+      MazeAnalytics one = new MazeAnalytics(corpus[k]);
+      t.checkExpect(all[k].csv(), one.csv());
+      // a tree has more dead ends than junctions, and at least two
+      t.checkExpect(one.diameter >= one.solutionLength, true);
+      t.checkExpect(one.deadEnds >= 2 && one.junctions < one.deadEnds, true);
+    }
+  }
+
+  // tests mazes stored in compressed sparse row form, on every shape
+  void testCsrMaze(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    MazeShapes shapes = new MazeShapes();
+
+    // a 2 x 2 grid lists each cell's neighbors top, bottom, right, left
+    CsrMaze square = shapes.rectangle(2, 2);
+    t.checkExpect(square.offsets, new int[] { 0, 2, 4, 6, 8 });
+    t.checkExpect(square.targets, new int[] { 2, 1, 3, 0, 0, 3, 1, 2 });
+    t.checkExpect(square.maxDegree(), 2);
+    int[] out = new int[4];
+    t.checkExpect(square.openNeighbors(0, out), 0);
+    square.openPassage(0, 1);
+    t.checkExpect(square.isOpen(1, 0), true);
+    t.checkExpect(square.isOpen(0, 2), false);
+    t.checkExpect(square.openNeighbors(1, out), 1);
+    t.checkExpect(out[0], 0);
+    t.checkException(new IllegalArgumentException("Cells 0 and 3 are not neighbors"), square,
+        "openPassage", 0, 3);
+
+    // a rectangle opens the same neighbors, in the same order, as a compact
+    // maze with the same walls knocked down
+    CsrMaze rectangle = shapes.rectangle(9, 7);
+    util.kruskal(rectangle, 4L);
+    CompactMaze compact = new CompactMaze(9, 7);
+    for (int i = 0; i < compact.size(); i++) {
+      if (rectangle.isOpen(i, i + 1)) {
+        compact.openRight(i);
+      }
+      if (rectangle.isOpen(i, i + 9)) {
+        compact.openBottom(i);
+      }
+    }
+    int[] expected = new int[4];
+    for (int i = 0; i < compact.size(); i++) {
+      t.checkExpect(rectangle.openNeighbors(i, out), compact.openNeighbors(i, expected));
+      t.checkExpect(out, expected);
+    }
+
+    // a torus wraps around, without listing a neighbor twice
+    t.checkExpect(shapes.torus(3, 3).maxDegree(), 4);
+    t.checkExpect(shapes.torus(3, 3).slot(0, 2), 3);
+    t.checkExpect(shapes.torus(2, 3).offsets[1], 3);
+    t.checkExpect(shapes.torus(1, 1).maxDegree(), 0);
+
+    // hexagons in odd rows sit half a cell to the right
+    CsrMaze hex = shapes.hex(3, 3);
+    t.checkExpect(hex.maxDegree(), 6);
+    t.checkExpect(Arrays.copyOfRange(hex.targets, hex.offsets[4], hex.offsets[5]),
+        new int[] { 3, 5, 1, 2, 7, 8 });
+    t.checkExpect(Arrays.copyOfRange(hex.targets, hex.offsets[0], hex.offsets[1]),
+        new int[] { 1, 3 });
+
+    // a mask keeps some cells of the grid, numbered in order
+    boolean[] ring = new boolean[] { true, true, true, true, false, true, true, true, true };
+    CsrMaze masked = shapes.masked(ring, 3);
+    t.checkExpect(masked.size(), 8);
+    t.checkExpect(masked.positions, new int[] { 0, 1, 2, 3, 5, 6, 7, 8 });
+    // cell 4 sits right of the hole in the middle of the grid
+    t.checkExpect(masked.column(4), 2);
+    t.checkExpect(masked.row(4), 1);
+    t.checkExpect(masked.column(5), 0);
+    t.checkExpect(masked.row(7), 2);
+    t.checkExpect(hex.column(5), 2);
+    t.checkExpect(hex.row(5), 1);
+    t.checkExpect(Arrays.copyOfRange(masked.targets, masked.offsets[3], masked.offsets[4]),
+        new int[] { 0, 5 });
+    t.checkException(new IllegalArgumentException("A mask must fill whole rows"), shapes,
+        "masked", new boolean[5], 2);
+    t.checkException(new IllegalArgumentException("A maze needs at least one cell"), shapes,
+        "masked", new boolean[4], 2);
+
+    // Kruskal's algorithm makes a perfect maze of every shape, which every
+    // solver walks the same way
+    CsrMaze[] all = new CsrMaze[] { shapes.torus(12, 9), shapes.hex(11, 8),
+        shapes.masked(ring, 3), shapes.rectangle(1, 1) };
+    for (CsrMaze maze : all) {
+      util.kruskal(maze, 9L);
+      int last = maze.size() - 1;
+      int degrees = 0;
+      for (int i = 0; i < maze.size(); i++) {
+        degrees += maze.openNeighbors(i, new int[maze.maxDegree()]);
+      }
+      t.checkExpect(degrees, 2 * last);
+
+      ASearch bfs = new MazeSearch(maze, 0, last, false);
+      bfs.run();
+      ASearch both = new BidirectionalSearch(maze, 0, last);
+      both.run();
+      t.checkExpect(bfs.path(), new LcaIndex(maze, 0).path(0, last));
+      t.checkExpect(both.path(), bfs.path());
+      t.checkExpect(new MazeAnalytics(maze).solutionLength, bfs.path().length - 1);
+      t.checkExpect(new ParallelBfs(maze).run(0)[last], bfs.path().length - 1);
+    }
+  }
+
+  // tests building a maze on screen a few edges a tick
+  void testBuildOnScreen(Tester t) {
+    ArrayUtils util = new ArrayUtils();
+    CompactMaze expected = util.connectBoard(8, 6, 3L);
+    util.kruskal(expected);
+
+    // the builder starts from every wall standing, and each step looks at no
+    // more edges than it is given
+    CompactMaze grid = util.connectBoard(8, 6, 3L);
+    Maze game = new Maze(grid).buildOnScreen(5);
+    t.checkExpect(grid.walls, new CompactMaze(8, 6).walls);
+    t.checkExpect(game.makeScene(), new MazeCanvas(new CompactMaze(8, 6)).drawOn(
+        new WorldScene(8 * Cell.CELL_SIZE, 6 * Cell.CELL_SIZE)));
+    game.onKeyEvent("b");
+    int ticks = 0;
+    while (game.builder != null) {
+      int looked = game.builder.next;
+      game.onTick();
+      t.checkExpect(game.search, null);
+      t.checkExpect(game.builder == null || game.builder.next - looked == 5, true);
+      ticks++;
+    }
+    t.checkExpect(ticks >= 47 / 5, true);
+
+    // it makes the same maze kruskal does, drawn the same way
+    t.checkExpect(grid.walls, expected.walls);
+    t.checkExpect(game.canvas.image, new MazeCanvas(expected).image);
+    // then the search picked while it was building runs
+    game.cellsPerTick = 48;
+    game.onTick();
+    t.checkExpect(game.solution, new LcaIndex(expected, 0).path(0, 47));
+
+    // and draws it into a window too
+    Maze big = new Maze(util.connectBoard(8, 6, 3L), 64, 48).buildOnScreen(7);
+    while (big.builder != null) {
+      big.onTick();
+    }
+    t.checkExpect(big.viewport.image, new MazeViewport(expected, 64, 48).image);
+
+    // a board of Cells is built into the same maze as its grid, even where
+    // Kruskal's algorithm on its Edges would break ties differently
+    ArrayList<Cell> cells = util.generateBoard(8, 6);
+    ArrayList<Edge> edges = util.connectBoard(cells, 8, 6, 3L);
+    util.kruskal(util.sort(edges, 0, edges.size() - 1));
+    Maze board = new Maze(cells, edges, 8, 6).buildOnScreen(4);
+    for (Edge e : edges) {
+      t.checkExpect(e.solid, true);
+    }
+    while (board.builder != null) {
+      board.onTick();
+    }
+    for (Cell c : cells) {
+      t.checkExpect(c.rightEdge == null || c.rightEdge.solid == board.grid.hasRightWall(c.id),
+          true);
+      t.checkExpect(c.botEdge == null || c.botEdge.solid == board.grid.hasBottomWall(c.id),
+          true);
+    }
+    t.checkExpect(CompactMaze.fromBoard(cells, 8, 6).walls, board.grid.walls);
+
+    // up and down change the speed of the building while there is one
+    Maze slow = new Maze(util.connectBoard(4, 4, 1L)).buildOnScreen(2);
+    slow.onKeyEvent("up");
+    t.checkExpect(slow.edgesPerTick, 4);
+    t.checkExpect(slow.cellsPerTick, 1);
+    slow.onKeyEvent("down");
+    slow.onKeyEvent("down");
+    slow.onKeyEvent("down");
+    t.checkExpect(slow.edgesPerTick, 1);
+    // but never past the number of edges, however many times it is pressed
+    for (int k = 0; k < 40; k++) {
+      slow.onKeyEvent("up");
+    }
+    t.checkExpect(slow.edgesPerTick, 24);
+    slow.onTick();
+    t.checkExpect(slow.builder, null);
+
+    // a step reports the cells whose walls it knocked down
+    KruskalBuilder builder = new KruskalBuilder(util.connectBoard(3, 3, 2L));
+    t.checkExpect(builder.step(0), 0);
+    int first = builder.step(5);
+    t.checkExpect(builder.changed.length, 5);
+    int rest = builder.step(Integer.MAX_VALUE);
+    // the buffer only grows to fit the 7 of the 12 edges that were left
+    t.checkExpect(builder.changed.length, 7);
+    t.checkExpect(first + rest, 8);
+    t.checkExpect(builder.done(), true);
+    t.checkExpect(builder.step(4), 0);
+    t.checkExpect(new KruskalBuilder(new CompactMaze(1, 1)).done(), true);
+  }
+
+  // tests the benchmark harness on small boards
+  void testMazeBenchmark(Tester t) throws IOException {
+    MazeBenchmark harness = new MazeBenchmark();
+    harness.sizes = new int[] { 4, 2000 };
+    harness.millis = 1;
+
+    // every benchmark leaves the same state behind as it started from
+    ABenchmark kruskal = new CompactKruskalBenchmark();
+    kruskal.setUp(6, 5);
+    kruskal.prepare();
+    long[] walls = ((CompactMaze) kruskal.run()).walls.clone();
+    kruskal.prepare();
+    t.checkExpect(((CompactMaze) kruskal.run()).walls, walls);
+    ABenchmark tick = new OnTickBenchmark("b");
+    tick.setUp(6, 5);
+    tick.prepare();
+    int[] solution = (int[]) tick.run();
+    t.checkExpect(solution[solution.length - 1], 29);
+    tick.prepare();
+    t.checkExpect(tick.run(), solution);
+
+    // Cell boards of 2000 x 2000 are skipped, compact ones are not
+    ArrayList<BenchmarkResult> results = harness.runAll();
+    t.checkExpect(results.size(), harness.benchmarks().size() + 1);
+    for (BenchmarkResult result : results) {
+      t.checkExpect(result.ops > 0, true);
+      t.checkExpect(result.bytesPerOp() >= 0, true);
+      t.checkExpect(result.csv().startsWith(result.name + "," + result.width + "x"), true);
+    }
+    t.checkExpect(results.get(5).key(), "kruskal (compact),2000x2000");
+
+    // a baseline is read back by benchmark and size
+    Path csv = Files.createTempDirectory("bench").resolve("baseline.csv");
+    Files.write(csv, Arrays.asList(MazeBenchmark.CSV_HEADER, "sort,4x4,100.0,0.0,0.0"));
+    HashMap<String, Double> baseline = harness.readBaseline(csv);
+    t.checkExpect(baseline.get("sort,4x4"), 100.0);
+    t.checkExpect(harness.report(new BenchmarkResult("sort", 4, 4, 2, 10000000, 0), baseline)
+        .endsWith("+100.0%"), true);
+
+    // options are read like MazeBatch's, and ones that make no sense are refused
+    MazeBenchmark options = new MazeBenchmark(new String[] { "--sizes", "3,5", "--time", "7",
+        "--out", csv.toString(), "--baseline", csv.toString() });
+    t.checkExpect(options.sizes, new int[] { 3, 5 });
+    t.checkExpect(options.millis, 7L);
+    t.checkExpect(options.out.toString(), csv.toString());
+    t.checkExpect(options.baseline.toString(), csv.toString());
+    t.checkExpect(new MazeBenchmark(new String[0]).baseline, null);
+    t.checkConstructorException(new IllegalArgumentException("Every option needs a value"),
+        "MazeBenchmark", (Object) new String[] { "--sizes", "10", "--out" });
+    t.checkConstructorException(new IllegalArgumentException("Unknown option: --size"),
+        "MazeBenchmark", (Object) new String[] { "--size", "10" });
+    t.checkConstructorException(new IllegalArgumentException("--sizes must all be positive"),
+        "MazeBenchmark", (Object) new String[] { "--sizes", "10,0" });
+    t.checkConstructorException(new IllegalArgumentException("--time must be positive"),
+        "MazeBenchmark", (Object) new String[] { "--time", "-5" });
+  }
+
+  // tests the Stack and Queue classes
+  void testCollections(Tester t) {
+    ICollection<String> stack = new Stack<String>();
+    ICollection<String> queue = new Queue<String>();
+    t.checkExpect(stack.isEmpty(), true);
+    stack.add("a");
+    stack.add("b");
+    queue.add("a");
+    queue.add("b");
+    t.checkExpect(stack.isEmpty(), false);
+    t.checkExpect(stack.remove(), "b");
+    t.checkExpect(queue.remove(), "a");
+    t.checkExpect(stack.remove(), "a");
+    t.checkExpect(queue.remove(), "b");
+    t.checkExpect(queue.isEmpty(), true);
+    t.checkException(new IndexOutOfBoundsException("Cannot remove from an empty collection"),
+        stack, "remove");
+
+    // growing past the first array keeps the order, even once wrapped around
+    IIntCollection ints = new IntQueue();
+    for (int i = 0; i < 10; i++) {
+      ints.add(i);
+    }
+    for (int i = 0; i < 10; i++) {
+      t.checkExpect(ints.remove(), i);
+      ints.add(i + 10);
+      ints.add(i + 20);
+    }
+    for (int i = 0; i < 10; i++) {
+      t.checkExpect(ints.remove(), i + 10);
+      t.checkExpect(ints.remove(), i + 20);
+    }
+    t.checkExpect(ints.isEmpty(), true);
+
+    IIntCollection intStack = new IntStack();
+    for (int i = 0; i < 100; i++) {
+      intStack.add(i);
+    }
+    t.checkExpect(intStack.remove(), 99);
+    intStack.clear();
+    t.checkExpect(intStack.isEmpty(), true);
+    t.checkException(new IndexOutOfBoundsException("Cannot remove from an empty collection"),
+        intStack, "remove");
+  }
+
   // tests the generateBoard method
   void testGenerateBoardMethod(Tester t) {
     // init conditions
@@ -791,10 +2814,10 @@ class ExamplesMaze {
     this.result = new WorldScene(Maze.BOARD_WIDTH * Cell.CELL_SIZE,
         Maze.BOARD_HEIGHT * Cell.CELL_SIZE);
 
-    result.placeImageXY(this.c1.drawCell(), Cell.CELL_SIZE / 2, Cell.CELL_SIZE / 2);
-    result.placeImageXY(this.c2.drawCell(), 3 * (Cell.CELL_SIZE / 2), Cell.CELL_SIZE / 2);
-    result.placeImageXY(this.c3.drawCell(), Cell.CELL_SIZE / 2, 3 * (Cell.CELL_SIZE / 2));
-    result.placeImageXY(this.c4.drawCell(), 3 * (Cell.CELL_SIZE / 2), 3 * (Cell.CELL_SIZE / 2));
+    // the Maze draws its cells into one image, the size of the whole board
+    new MazeCanvas(CompactMaze.fromBoard(
+        new ArrayList<Cell>(Arrays.asList(this.c1, this.c2, this.c3, this.c4)), Maze.BOARD_WIDTH,
+        Maze.BOARD_HEIGHT)).drawOn(this.result);
 
   }
 
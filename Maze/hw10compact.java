@@ -0,0 +1,210 @@
+// Libraries used
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// represents a maze as a graph of cell indices 0 .. size() - 1 that solvers can
+// walk without allocating anything
+interface IMazeGraph {
+  // the number of cells in the maze
+  int size();
+
+  // the most open neighbors any cell can have
+  int maxDegree();
+
+  // writes the cells that can be reached in one step from cell into out,
+  // which must have room for maxDegree() cells, and returns how many there are
+  int openNeighbors(int cell, int[] out);
+
+  // fresh scratch space for searches of this maze, with no cell visited
+  ISearchScratch newScratch();
+}
+
+// represents a rectangular maze whose walls are stored 2 bits per cell.
+// Cell i sits in column i % width and row i / width. Like connectBoard, every
+// cell owns only its right and bottom walls; the top row and first column are
+// walled in by the border. Subclasses decide where the bits live
+abstract class AGridMaze implements IMazeGraph {
+  // the wall bits of a single cell
+  static final int RIGHT_WALL = 1;
+  static final int BOTTOM_WALL = 2;
+
+  // the directions of a cell's neighbors, in the order top, bottom, right,
+  // left
+  static final int TOP = 0;
+  static final int BOTTOM = 1;
+  static final int RIGHT = 2;
+  static final int LEFT = 3;
+
+  // the number of columns and rows
+  int width;
+  int height;
+
+  // Constructor
+  AGridMaze(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("A maze needs at least one row and one column");
+    }
+    if ((long) width * height > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("A maze can hold at most " + (Integer.MAX_VALUE / 2)
+          + " cells");
+    }
+
+    this.width = width;
+    this.height = height;
+  }
+
+  // the RIGHT_WALL and BOTTOM_WALL bits of cell i
+  abstract int wallBits(int i);
+
+  // EFFECT: knocks down the given RIGHT_WALL or BOTTOM_WALL of cell i
+  abstract void clearWall(int i, int wall);
+
+  // the wall bits of cells 32 * k .. 32 * k + 31 packed into one long, the
+  // way a CompactMaze stores them and a MazeFile writes them. Bits past the
+  // last cell are walls
+  long wallWord(int k) {
+    long word = -1L;
+    for (int i = 32 * k; i < Math.min(32 * k + 32, this.size()); i++) {
+      word &= ~((long) (~this.wallBits(i) & 3) << ((i & 31) << 1));
+    }
+    return word;
+  }
+
+  // EFFECT: knocks down the wall on the right of cell i
+  void openRight(int i) {
+    this.clearWall(i, AGridMaze.RIGHT_WALL);
+  }
+
+  // EFFECT: knocks down the wall below cell i
+  void openBottom(int i) {
+    this.clearWall(i, AGridMaze.BOTTOM_WALL);
+  }
+
+  // the number of cells in this maze
+  public int size() {
+    return this.width * this.height;
+  }
+
+  // a grid cell has at most 4 neighbors
+  public int maxDegree() {
+    return 4;
+  }
+
+  // fresh scratch space for searches of this maze, on the heap
+  public ISearchScratch newScratch() {
+    return new StampedScratch(this.size());
+  }
+
+  // writes the open neighbors of cell i into out, in the order top, bottom,
+  // right, left, and returns how many there are. Reads the wall bits straight
+  // out of the storage
+  public int openNeighbors(int i, int[] out) {
+    int count = 0;
+    int column = i % this.width;
+    int bits = this.wallBits(i);
+    if (i >= this.width && (this.wallBits(i - this.width) & AGridMaze.BOTTOM_WALL) == 0) {
+      out[count++] = i - this.width;
+    }
+    if ((bits & AGridMaze.BOTTOM_WALL) == 0 && i + this.width < this.size()) {
+      out[count++] = i + this.width;
+    }
+    if ((bits & AGridMaze.RIGHT_WALL) == 0 && column != this.width - 1) {
+      out[count++] = i + 1;
+    }
+    if (column != 0 && (this.wallBits(i - 1) & AGridMaze.RIGHT_WALL) == 0) {
+      out[count++] = i - 1;
+    }
+    return count;
+  }
+
+  // is there a wall on the right of cell i?
+  boolean hasRightWall(int i) {
+    return (this.wallBits(i) & AGridMaze.RIGHT_WALL) != 0;
+  }
+
+  // is there a wall below cell i?
+  boolean hasBottomWall(int i) {
+    return (this.wallBits(i) & AGridMaze.BOTTOM_WALL) != 0;
+  }
+
+  // is there a wall above cell i? The top row is always walled in
+  boolean hasTopWall(int i) {
+    return i < this.width || this.hasBottomWall(i - this.width);
+  }
+
+  // is there a wall on the left of cell i? The first column is always walled in
+  boolean hasLeftWall(int i) {
+    return i % this.width == 0 || this.hasRightWall(i - 1);
+  }
+
+  // returns the cell reached by walking from cell i in the given direction, or
+  // -1 if a wall (or the border) is in the way
+  int openNeighbor(int i, int direction) {
+    if (direction == AGridMaze.TOP) {
+      return this.hasTopWall(i) ? -1 : i - this.width;
+    }
+    else if (direction == AGridMaze.BOTTOM) {
+      return this.hasBottomWall(i) || i + this.width >= this.size() ? -1 : i + this.width;
+    }
+    else if (direction == AGridMaze.RIGHT) {
+      return this.hasRightWall(i) || i % this.width == this.width - 1 ? -1 : i + 1;
+    }
+    else {
+      return this.hasLeftWall(i) ? -1 : i - 1;
+    }
+  }
+}
+
+// represents a maze as flat primitive arrays instead of Cell and Edge objects:
+// the wall bits are packed 32 cells to a long, and the weights of each cell's
+// right and bottom edges sit in a parallel array.
+class CompactMaze extends AGridMaze {
+  // 2 wall bits for each cell, 32 cells per long
+  long[] walls;
+  // the weight of cell i's right edge is at 2 * i, its bottom edge at 2 * i + 1
+  int[] weights;
+
+  // Constructor: a width x height maze with every wall standing
+  CompactMaze(int width, int height) {
+    super(width, height);
+    this.walls = new long[(width * height + 31) / 32];
+    this.weights = new int[2 * width * height];
+    Arrays.fill(this.walls, -1L);
+  }
+
+  // builds the compact form of a board made by generateBoard and connectBoard
+  static CompactMaze fromBoard(ArrayList<Cell> board, int width, int height) {
+    CompactMaze result = new CompactMaze(width, height);
+    for (Cell c : board) {
+      if (c.rightEdge != null) {
+        result.weights[2 * c.id] = c.rightEdge.weight;
+        if (!c.rightEdge.solid) {
+          result.openRight(c.id);
+        }
+      }
+
+      if (c.botEdge != null) {
+        result.weights[2 * c.id + 1] = c.botEdge.weight;
+        if (!c.botEdge.solid) {
+          result.openBottom(c.id);
+        }
+      }
+    }
+    return result;
+  }
+
+  // the RIGHT_WALL and BOTTOM_WALL bits of cell i
+  int wallBits(int i) {
+    return (int) (this.walls[i >>> 5] >>> ((i & 31) << 1)) & 3;
+  }
+
+  // EFFECT: knocks down the given RIGHT_WALL or BOTTOM_WALL of cell i
+  void clearWall(int i, int wall) {
+    this.walls[i >>> 5] &= ~((long) wall << ((i & 31) << 1));
+  }
+
+  // the wall bits of cells 32 * k .. 32 * k + 31, as stored
+  long wallWord(int k) {
+    return this.walls[k];
+  }
+}
@@ -0,0 +1,220 @@
+// Libraries used
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Reads and writes mazes in a compact binary format. A file is a 32 byte
+// little-endian header
+//
+//   magic "MAZE" (int), version (int), width (int), generator id (int),
+//   height (long), seed (long)
+//
+// followed by the wall bits of every cell, 2 per cell in row-major order,
+// packed into longs exactly like a CompactMaze's walls. Files are opened by
+// memory mapping them, so a maze can be solved straight off the disk. Although
+// the height is a long, a maze may have at most MAX_CELLS cells, as many as an
+// AGridMaze holds, and no larger file is written or opened
+class MazeFile {
+  // the first 4 bytes of every maze file, "MAZE" in ASCII
+  static final int MAGIC = 0x4D415A45;
+  // the version of the format this class reads and writes
+  static final int VERSION = 1;
+  // the number of bytes before the wall bits
+  static final int HEADER_SIZE = 32;
+
+  // the ids of the generators a maze can be made with
+  static final int KRUSKAL = 0;
+  static final int PARALLEL = 1;
+  static final int ELLER = 2;
+
+  // the most cells a maze file may have
+  static final long MAX_CELLS = Integer.MAX_VALUE / 2;
+
+  // the number of bytes of wall bits in a width x height maze, a whole
+  // number of longs
+  long bitmapSize(int width, long height) {
+    return (width * height + 31) / 32 * 8;
+  }
+
+  // can a width x height maze be written and opened again?
+  boolean fits(int width, long height) {
+    return width >= 1 && height >= 1 && height <= MazeFile.MAX_CELLS / width;
+  }
+
+  // the header of a maze file
+  ByteBuffer header(int width, long height, long seed, int generator) {
+    ByteBuffer result = ByteBuffer.allocate(MazeFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    result.putInt(MazeFile.MAGIC).putInt(MazeFile.VERSION).putInt(width).putInt(generator);
+    result.putLong(height).putLong(seed);
+    result.flip();
+    return result;
+  }
+
+  // EFFECT: writes the maze to the file at path, replacing anything there
+  void write(AGridMaze maze, long seed, int generator, Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      long words = this.bitmapSize(maze.width, maze.height) / 8;
+      MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          MazeFile.HEADER_SIZE + 8 * words);
+      out.order(ByteOrder.LITTLE_ENDIAN);
+      out.put(this.header(maze.width, maze.height, seed, generator));
+      for (int k = 0; k < words; k++) {
+        out.putLong(maze.wallWord(k));
+      }
+    }
+  }
+
+  // opens the maze file at path by memory mapping its wall bits. A writable
+  // maze writes every knocked down wall straight through to the file
+  MappedMaze open(Path path, boolean writable) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, writable
+        ? new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE }
+        : new StandardOpenOption[] { StandardOpenOption.READ })) {
+      ByteBuffer header = ByteBuffer.allocate(MazeFile.HEADER_SIZE)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining() && channel.read(header) != -1) {
+        // keep reading
+      }
+      header.flip();
+      if (header.remaining() < MazeFile.HEADER_SIZE || header.getInt() != MazeFile.MAGIC) {
+        throw new IOException("Not a maze file: " + path);
+      }
+      if (header.getInt() != MazeFile.VERSION) {
+        throw new IOException("Unsupported maze file version: " + path);
+      }
+
+      int width = header.getInt();
+      int generator = header.getInt();
+      long height = header.getLong();
+      long seed = header.getLong();
+      if (width < 1 || height < 1) {
+        throw new IOException("Corrupt maze header: " + path);
+      }
+      if (!this.fits(width, height)) {
+        throw new IOException("Maze too large to map: " + path);
+      }
+      if (channel.size() < MazeFile.HEADER_SIZE + this.bitmapSize(width, height)) {
+        throw new IOException("Truncated maze file: " + path);
+      }
+
+      MappedByteBuffer bits = channel.map(
+          writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+          MazeFile.HEADER_SIZE, this.bitmapSize(width, height));
+      return new MappedMaze(width, (int) height, seed, generator, bits);
+    }
+  }
+}
+
+// represents a maze whose wall bits live in a memory mapped maze file. A
+// writable maze knocks down its walls in the file itself
+class MappedMaze extends ABufferMaze {
+  // the seed and generator id from the file's header
+  long seed;
+  int generator;
+
+  // Constructor
+  MappedMaze(int width, int height, long seed, int generator, MappedByteBuffer bits) {
+    super(width, height, bits);
+    this.seed = seed;
+    this.generator = generator;
+  }
+}
+
+// represents a sink that writes the rows of a maze to a maze file as they
+// are made, so mazes taller than memory can be saved
+class MazeFileWriter implements IRowSink {
+  // the file being written
+  FileChannel channel;
+  // bytes waiting to be written
+  ByteBuffer buffer;
+  // the wall bits not yet making up a whole long, and how many there are
+  long word;
+  int bits;
+  // the maze's size, and how many rows have been written
+  int width;
+  long height;
+  long rows;
+
+  // Constructor: starts the file at path with its header, unless the maze
+  // could never be opened again
+  MazeFileWriter(Path path, int width, long height, long seed, int generator)
+      throws IOException {
+    if (!new MazeFile().fits(width, height)) {
+      throw new IllegalArgumentException("A maze file can hold at most " + MazeFile.MAX_CELLS
+          + " cells, not " + width + " x " + height);
+    }
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    this.buffer.put(new MazeFile().header(width, height, seed, generator));
+    this.word = 0;
+    this.bits = 0;
+    this.width = width;
+    this.height = height;
+    this.rows = 0;
+  }
+
+  // EFFECT: appends the wall bits of row y, which must be the next row
+  public void acceptRow(long y, long[] walls) {
+    if (y != this.rows) {
+      throw new IllegalStateException("Rows must be written in order");
+    }
+
+    for (int x = 0; x < this.width; x++) {
+      this.word |= ((walls[x >>> 5] >>> ((x & 31) << 1)) & 3) << this.bits;
+      this.bits += 2;
+      if (this.bits == 64) {
+        this.putWord();
+      }
+    }
+    this.rows++;
+  }
+
+  // EFFECT: moves the full word into the buffer, writing the buffer out when
+  // it fills up
+  void putWord() {
+    this.buffer.putLong(this.word);
+    this.word = 0;
+    this.bits = 0;
+    if (!this.buffer.hasRemaining()) {
+      this.flush();
+    }
+  }
+
+  // EFFECT: writes out everything in the buffer
+  void flush() {
+    try {
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      }
+      this.buffer.clear();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // EFFECT: pads the last long with walls and closes the file, which must
+  // have every row by now
+  void close() throws IOException {
+    if (this.rows != this.height) {
+      this.channel.close();
+      throw new IllegalStateException("Only " + this.rows + " of " + this.height
+          + " rows were written");
+    }
+    if (this.bits > 0) {
+      this.word |= -1L << this.bits;
+      this.putWord();
+    }
+    this.flush();
+    this.channel.close();
+  }
+}
@@ -0,0 +1,405 @@
+// Libraries used
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// represents a maze generator that splits the board into square tiles, turns
+// every tile into a spanning tree on a fork-join pool, then joins the tiles
+// into one perfect maze with Kruskal's algorithm over the edges between them.
+// Tiles are handed out a band of rows at a time, and bands start on a whole
+// long of the wall bitset, so no two threads ever write the same word. Every
+// band draws from its own generator, split off the seed's in band order
+// before any band starts, so a seed makes the same maze however the bands are
+// scheduled
+class ParallelGenerator {
+  // the width and height of a tile, in cells
+  int tileSize;
+  // the pool the bands are connected on
+  ForkJoinPool pool;
+
+  // Constructor
+  ParallelGenerator(int tileSize, ForkJoinPool pool) {
+    if (tileSize < 2) {
+      throw new IllegalArgumentException("Tiles must be at least 2 cells wide");
+    }
+    this.tileSize = tileSize;
+    this.pool = pool;
+  }
+
+  // Constructor with 64 cell tiles on the common pool
+  ParallelGenerator() {
+    this(64, ForkJoinPool.commonPool());
+  }
+
+  // makes a width x height perfect maze from the given seed
+  CompactMaze generate(int width, int height, long seed) {
+    CompactMaze maze = new CompactMaze(width, height);
+    this.generate(maze, seed);
+    return maze;
+  }
+
+  // EFFECT: knocks down the walls of a perfect maze from the given seed in the
+  // given maze, which must have every wall standing
+  void generate(AGridMaze maze, long seed) {
+    TileLayout tiles = new TileLayout(maze.width, maze.height, this.tileSize);
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] rands = new SplittableRandom[tiles.bands];
+    for (int band = 0; band < tiles.bands; band++) {
+      rands[band] = root.split();
+    }
+    // the edges between tiles, found by each band and then joined serially
+    int[][] boundary = new int[tiles.bands][];
+    int[][] boundaryWeights = new int[tiles.bands][];
+
+    this.pool.invoke(new ConnectBands(maze, tiles, 0, tiles.bands, rands, boundary,
+        boundaryWeights));
+    new ArrayUtils().joinTiles(maze, tiles, boundary, boundaryWeights);
+  }
+}
+
+// represents how a board is cut into tiles, and the tiles into bands of rows
+class TileLayout {
+  // the board's size
+  int width;
+  int height;
+  // the width of a tile, and the height of a band of tiles
+  int tileWidth;
+  int bandHeight;
+  // the number of tiles across a band, and the number of bands
+  int columns;
+  int bands;
+
+  // Constructor: bands are as close to tileSize tall as they can be while
+  // starting on a multiple of 32 cells, the cells in one long of wall bits
+  TileLayout(int width, int height, int tileSize) {
+    int align = 32;
+    for (int w = width; align > 1 && w % 2 == 0; w /= 2) {
+      align /= 2;
+    }
+
+    this.width = width;
+    this.height = height;
+    this.tileWidth = Math.min(tileSize, width);
+    this.bandHeight = Math.min((tileSize + align - 1) / align * align, height);
+    this.columns = (width + this.tileWidth - 1) / this.tileWidth;
+    this.bands = (height + this.bandHeight - 1) / this.bandHeight;
+  }
+
+  // the number of tiles
+  int tiles() {
+    return this.columns * this.bands;
+  }
+
+  // the tile cell i belongs to
+  int tileOf(int i) {
+    return (i / this.width / this.bandHeight) * this.columns + (i % this.width) / this.tileWidth;
+  }
+}
+
+// represents the work of connecting the tiles in a range of bands, split in
+// half until each piece is a single band
+class ConnectBands extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  // the maze being connected and how it is tiled
+  AGridMaze maze;
+  TileLayout tiles;
+  // the bands to connect, from first up to but not including last
+  int first;
+  int last;
+  // the random number generator of every band
+  SplittableRandom[] rands;
+  // where each band leaves the ids and weights of its edges to later tiles
+  int[][] boundary;
+  int[][] boundaryWeights;
+
+  // Constructor
+  ConnectBands(AGridMaze maze, TileLayout tiles, int first, int last,
+      SplittableRandom[] rands, int[][] boundary, int[][] boundaryWeights) {
+    this.maze = maze;
+    this.tiles = tiles;
+    this.first = first;
+    this.last = last;
+    this.rands = rands;
+    this.boundary = boundary;
+    this.boundaryWeights = boundaryWeights;
+  }
+
+  // EFFECT: connects every tile in the bands, and records their boundary edges
+  protected void compute() {
+    if (this.last - this.first > 1) {
+      int mid = (this.first + this.last) / 2;
+      ConnectBands.invokeAll(
+          new ConnectBands(this.maze, this.tiles, this.first, mid, this.rands,
+              this.boundary, this.boundaryWeights),
+          new ConnectBands(this.maze, this.tiles, mid, this.last, this.rands,
+              this.boundary, this.boundaryWeights));
+    }
+    else if (this.last - this.first == 1) {
+      this.connectBand(this.first, this.rands[this.first]);
+    }
+  }
+
+  // EFFECT: turns every tile of the band into a spanning tree, and records the
+  // right edges of its tiles and the bottom edges of its last row
+  void connectBand(int band, SplittableRandom rand) {
+    ArrayUtils util = new ArrayUtils();
+    int top = band * this.tiles.bandHeight;
+    int rows = Math.min(this.tiles.bandHeight, this.maze.height - top);
+    for (int left = 0; left < this.maze.width; left += this.tiles.tileWidth) {
+      util.connectTile(this.maze, left, top,
+          Math.min(this.tiles.tileWidth, this.maze.width - left), rows, rand);
+    }
+
+    int count = this.tiles.columns - 1;
+    if (top + rows < this.maze.height) {
+      count = count * rows + this.maze.width;
+    }
+    else {
+      count = count * rows;
+    }
+
+    int[] ids = new int[count];
+    int[] weights = new int[count];
+    int k = 0;
+    for (int y = top; y < top + rows; y++) {
+      for (int x = this.tiles.tileWidth - 1; x < this.maze.width - 1; x += this.tiles.tileWidth) {
+        ids[k] = 2 * (y * this.maze.width + x);
+        weights[k++] = rand.nextInt(ArrayUtils.WEIGHT_RANGE);
+      }
+    }
+    if (top + rows < this.maze.height) {
+      for (int x = 0; x < this.maze.width; x++) {
+        ids[k] = 2 * ((top + rows - 1) * this.maze.width + x) + 1;
+        weights[k++] = rand.nextInt(ArrayUtils.WEIGHT_RANGE);
+      }
+    }
+    this.boundary[band] = ids;
+    this.boundaryWeights[band] = weights;
+  }
+}
+
+// represents something that takes a maze one row at a time, such as a file
+// writer or a renderer
+interface IRowSink {
+  // EFFECT: takes row y, whose cells' RIGHT_WALL and BOTTOM_WALL bits are
+  // packed 2 to a cell into walls the same way a CompactMaze packs them. The
+  // array is reused for the next row
+  void acceptRow(long y, long[] walls);
+}
+
+// represents a sink that copies every row into a grid maze, wherever its
+// walls are stored
+class GridRowSink implements IRowSink {
+  // the maze being filled in
+  AGridMaze maze;
+
+  // Constructor
+  GridRowSink(AGridMaze maze) {
+    this.maze = maze;
+  }
+
+  // EFFECT: knocks down the maze's walls that are open in row y
+  public void acceptRow(long y, long[] walls) {
+    int first = (int) y * this.maze.width;
+    for (int x = 0; x < this.maze.width; x++) {
+      int bits = (int) (walls[x >>> 5] >>> ((x & 31) << 1)) & 3;
+      if ((bits & AGridMaze.RIGHT_WALL) == 0) {
+        this.maze.openRight(first + x);
+      }
+      if ((bits & AGridMaze.BOTTOM_WALL) == 0) {
+        this.maze.openBottom(first + x);
+      }
+    }
+  }
+}
+
+// represents a maze generator using Eller's algorithm, which makes a perfect
+// maze one row at a time and only remembers which cells of the current row
+// are already connected, so mazes can be far taller than memory allows
+class EllerGenerator {
+  // the number of columns
+  int width;
+  // the source of every coin flip
+  SplittableRandom rand;
+
+  // the set label of every cell in the current row, all below width
+  int[] set;
+  // a union-find over this row's labels, rebuilt for every row
+  int[] parent;
+  // the last column of the row belonging to each set
+  int[] lastColumn;
+  // has each set been carried down to the next row yet?
+  boolean[] carried;
+  // is each label taken by a set carried into the next row?
+  boolean[] used;
+  // the wall bits of the current row, packed like a CompactMaze's
+  long[] walls;
+
+  // Constructor: the same seed always makes the same rows
+  EllerGenerator(int width, long seed) {
+    if (width < 1) {
+      throw new IllegalArgumentException("A maze needs at least one column");
+    }
+    this.width = width;
+    this.rand = new SplittableRandom(seed);
+    this.set = new int[width];
+    this.parent = new int[width];
+    this.lastColumn = new int[width];
+    this.carried = new boolean[width];
+    this.used = new boolean[width];
+    this.walls = new long[(width + 31) / 32];
+  }
+
+  // makes a width x height perfect maze in memory
+  CompactMaze generate(int height) {
+    CompactMaze maze = new CompactMaze(this.width, height);
+    this.generate(height, new GridRowSink(maze));
+    return maze;
+  }
+
+  // EFFECT: hands the rows of a width x height perfect maze to the sink,
+  // top to bottom
+  void generate(long height, IRowSink sink) {
+    if (height < 1) {
+      throw new IllegalArgumentException("A maze needs at least one row");
+    }
+
+    for (int x = 0; x < this.width; x++) {
+      this.set[x] = x;
+    }
+    for (long y = 0; y < height; y++) {
+      this.makeRow(y == height - 1);
+      sink.acceptRow(y, this.walls);
+    }
+  }
+
+  // EFFECT: decides the walls of the current row, then relabels set for the
+  // row below. The last row joins every set that is still apart
+  void makeRow(boolean last) {
+    Arrays.fill(this.walls, -1L);
+    for (int label = 0; label < this.width; label++) {
+      this.parent[label] = label;
+    }
+
+    // join neighbors in different sets at random
+    for (int x = 0; x < this.width - 1; x++) {
+      int left = this.find(this.set[x]);
+      int right = this.find(this.set[x + 1]);
+      if (left != right && (last || this.rand.nextBoolean())) {
+        this.parent[right] = left;
+        this.open(x, CompactMaze.RIGHT_WALL);
+      }
+    }
+    if (last) {
+      return;
+    }
+
+    // carry every set down at least once, from random cells
+    for (int x = 0; x < this.width; x++) {
+      this.set[x] = this.find(this.set[x]);
+      this.lastColumn[this.set[x]] = x;
+      this.carried[this.set[x]] = false;
+      this.used[x] = false;
+    }
+    for (int x = 0; x < this.width; x++) {
+      int root = this.set[x];
+      if (this.rand.nextBoolean() || (this.lastColumn[root] == x && !this.carried[root])) {
+        this.carried[root] = true;
+        this.used[root] = true;
+        this.open(x, CompactMaze.BOTTOM_WALL);
+      }
+      else {
+        this.set[x] = -1;
+      }
+    }
+
+    // cells under a wall start new sets, with labels no carried set is using
+    int free = 0;
+    for (int x = 0; x < this.width; x++) {
+      if (this.set[x] == -1) {
+        while (this.used[free]) {
+          free++;
+        }
+        this.used[free] = true;
+        this.set[x] = free;
+      }
+    }
+  }
+
+  // the representative of the given label in this row
+  // EFFECT: halves the path on the way up
+  int find(int label) {
+    while (this.parent[label] != label) {
+      this.parent[label] = this.parent[this.parent[label]];
+      label = this.parent[label];
+    }
+    return label;
+  }
+
+  // EFFECT: knocks down the given wall of column x in the current row
+  void open(int x, int wall) {
+    this.walls[x >>> 5] &= ~((long) wall << ((x & 31) << 1));
+  }
+}
+
+// represents Kruskal's algorithm on a compact maze run a batch of edges at a
+// time, so a maze can be built on screen: each step looks at no more than the
+// edges it is given, in weight order, and knocks down the walls that join two
+// trees. The cells whose drawing changed are left in changed
+class KruskalBuilder {
+  // the maze being built
+  CompactMaze maze;
+  // the ids of the maze's inner edges ordered by weight, as sortEdgeIds gives
+  int[] order;
+  // the number of edges looked at so far
+  int next;
+  // the trees the knocked down walls have made so far
+  UnionFind sets;
+  // the cells the last step drew again, grown to fit the largest step
+  int[] changed;
+
+  // Constructor: builds the maze from its weights, starting with every wall
+  // standing
+  KruskalBuilder(CompactMaze maze) {
+    this.maze = maze;
+    Arrays.fill(maze.walls, -1L);
+    this.order = new ArrayUtils().sortEdgeIds(maze);
+    this.next = 0;
+    this.sets = new UnionFind(maze.size());
+    this.changed = new int[0];
+  }
+
+  // is the maze a spanning tree yet?
+  boolean done() {
+    return this.sets.components == 1 || this.next == this.order.length;
+  }
+
+  // returns the number of cells whose walls changed, which are in changed:
+  // the cell left of a knocked down right wall, or the cell below a knocked
+  // down bottom wall, since that is the cell that draws it
+  // EFFECT: looks at up to the given number of edges, knocking down the walls
+  // that join two trees
+  int step(int edges) {
+    int last = (int) Math.min((long) this.next + edges, this.order.length);
+    if (this.changed.length < last - this.next) {
+      this.changed = new int[last - this.next];
+    }
+
+    int count = 0;
+    for (; this.next < last && this.sets.components > 1; this.next++) {
+      int e = this.order[this.next];
+      int cell = e >>> 1;
+      if ((e & 1) == 0 && this.sets.union(cell, cell + 1)) {
+        this.maze.openRight(cell);
+        this.changed[count++] = cell;
+      }
+      else if ((e & 1) == 1 && this.sets.union(cell, cell + this.maze.width)) {
+        this.maze.openBottom(cell);
+        this.changed[count++] = cell + this.maze.width;
+      }
+    }
+    return count;
+  }
+}
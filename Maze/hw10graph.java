@@ -0,0 +1,232 @@
+// Libraries used
+import java.util.Arrays;
+
+// represents a maze on any layout of cells, stored in compressed sparse row
+// form: the cells next to cell i are targets[offsets[i]] up to but not
+// including targets[offsets[i + 1]], so every cell's neighbors sit side by side
+// in one array. Each of those slots has an open bit, set on both ends of a
+// passage, so finding a cell's open neighbors is one contiguous scan
+class CsrMaze implements IMazeGraph {
+  // where each cell's neighbors start in targets, and where the last one ends
+  int[] offsets;
+  // the neighbors of every cell, cell by cell
+  int[] targets;
+  // 1 bit per slot of targets, set if the passage to that neighbor is open
+  long[] open;
+  // the most neighbors any cell has
+  int maxDegree;
+  // where each cell sits on the grid its shape was cut from, as
+  // row * gridWidth + column
+  int[] positions;
+  int gridWidth;
+
+  // Constructor: a maze with every passage closed
+  CsrMaze(int[] offsets, int[] targets, int[] positions, int gridWidth) {
+    if (offsets.length < 2) {
+      throw new IllegalArgumentException("A maze needs at least one cell");
+    }
+    this.offsets = offsets;
+    this.targets = targets;
+    this.open = new long[(targets.length + 63) / 64];
+    this.positions = positions;
+    this.gridWidth = gridWidth;
+    for (int i = 0; i + 1 < offsets.length; i++) {
+      this.maxDegree = Math.max(this.maxDegree, offsets[i + 1] - offsets[i]);
+    }
+  }
+
+  // the number of cells in the maze
+  public int size() {
+    return this.offsets.length - 1;
+  }
+
+  // the most neighbors any cell has
+  public int maxDegree() {
+    return this.maxDegree;
+  }
+
+  // writes the open neighbors of cell into out in the order they are stored,
+  // and returns how many there are
+  public int openNeighbors(int cell, int[] out) {
+    int count = 0;
+    for (int s = this.offsets[cell]; s < this.offsets[cell + 1]; s++) {
+      if ((this.open[s >>> 6] & (1L << s)) != 0) {
+        out[count++] = this.targets[s];
+      }
+    }
+    return count;
+  }
+
+  // fresh scratch space for searches of this maze, on the heap
+  public ISearchScratch newScratch() {
+    return new StampedScratch(this.size());
+  }
+
+  // the column of the grid cell i sits in, for drawing it or estimating
+  // distances to it
+  int column(int i) {
+    return this.positions[i] % this.gridWidth;
+  }
+
+  // the row of the grid cell i sits in
+  int row(int i) {
+    return this.positions[i] / this.gridWidth;
+  }
+
+  // the slot of b among the neighbors of a, or -1 if they are not neighbors
+  int slot(int a, int b) {
+    for (int s = this.offsets[a]; s < this.offsets[a + 1]; s++) {
+      if (this.targets[s] == b) {
+        return s;
+      }
+    }
+    return -1;
+  }
+
+  // EFFECT: opens the passage between the neighboring cells a and b
+  void openPassage(int a, int b) {
+    int there = this.slot(a, b);
+    int back = this.slot(b, a);
+    if (there == -1 || back == -1) {
+      throw new IllegalArgumentException("Cells " + a + " and " + b + " are not neighbors");
+    }
+    this.open[there >>> 6] |= 1L << there;
+    this.open[back >>> 6] |= 1L << back;
+  }
+
+  // is the passage between cells a and b open?
+  boolean isOpen(int a, int b) {
+    int there = this.slot(a, b);
+    return there != -1 && (this.open[there >>> 6] & (1L << there)) != 0;
+  }
+}
+
+// represents the layouts a CsrMaze can be cut into. Each layout lists up to
+// maxDegree neighbors for every cell of a grid, with -1 for none, and build
+// packs the list into compressed sparse row form, dropping cells outside the
+// shape and any neighbor listed twice
+class MazeShapes {
+  // the rows and columns to the top, bottom, right and left of a square cell
+  static final int[] SQUARE_ROWS = new int[] { -1, 1, 0, 0 };
+  static final int[] SQUARE_COLUMNS = new int[] { 0, 0, 1, -1 };
+  // the rows and columns beside, above and below a hexagon, in an even row
+  // and then in an odd row
+  static final int[] HEX_ROWS = new int[] { 0, 0, -1, -1, 1, 1 };
+  static final int[] EVEN_HEX_COLUMNS = new int[] { -1, 1, -1, 0, -1, 0 };
+  static final int[] ODD_HEX_COLUMNS = new int[] { -1, 1, 0, 1, 0, 1 };
+
+  // a width x height grid of square cells, like a CompactMaze's
+  CsrMaze rectangle(int width, int height) {
+    return this.squares(width, height, false, null);
+  }
+
+  // a width x height grid of square cells whose left and right edges are
+  // joined, and whose top and bottom edges are joined
+  CsrMaze torus(int width, int height) {
+    return this.squares(width, height, true, null);
+  }
+
+  // the cells of a width wide grid of square cells where mask is true, row by
+  // row; cells are numbered in the same order
+  CsrMaze masked(boolean[] mask, int width) {
+    if (mask.length % width != 0) {
+      throw new IllegalArgumentException("A mask must fill whole rows");
+    }
+    return this.squares(width, mask.length / width, false, mask);
+  }
+
+  // a width x height grid of hexagons, with every odd row pushed half a cell
+  // to the right. Each cell touches the two beside it and two above and below
+  CsrMaze hex(int width, int height) {
+    this.checkSize(width, height);
+    int[] table = new int[6 * width * height];
+    for (int i = 0; i < width * height; i++) {
+      int[] columns = (i / width) % 2 == 0 ? MazeShapes.EVEN_HEX_COLUMNS
+          : MazeShapes.ODD_HEX_COLUMNS;
+      for (int k = 0; k < 6; k++) {
+        int row = i / width + MazeShapes.HEX_ROWS[k];
+        int column = i % width + columns[k];
+        boolean inside = row >= 0 && row < height && column >= 0 && column < width;
+        table[6 * i + k] = inside ? row * width + column : -1;
+      }
+    }
+    return this.build(table, 6, width, null);
+  }
+
+  // a grid of square cells, wrapped around on both axes if wrap is true, and
+  // cut down to the mask if it is not null
+  CsrMaze squares(int width, int height, boolean wrap, boolean[] mask) {
+    this.checkSize(width, height);
+    int[] table = new int[4 * width * height];
+    for (int i = 0; i < width * height; i++) {
+      for (int k = 0; k < 4; k++) {
+        int row = i / width + MazeShapes.SQUARE_ROWS[k];
+        int column = i % width + MazeShapes.SQUARE_COLUMNS[k];
+        if (wrap) {
+          row = Math.floorMod(row, height);
+          column = Math.floorMod(column, width);
+        }
+        boolean inside = row >= 0 && row < height && column >= 0 && column < width;
+        table[4 * i + k] = inside ? row * width + column : -1;
+      }
+    }
+    return this.build(table, 4, width, mask);
+  }
+
+  // EFFECT: throws if a grid of the given size has no cells or too many
+  void checkSize(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("A maze needs at least one row and one column");
+    }
+    if ((long) width * height * 6 > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("A shaped maze can hold at most "
+          + (Integer.MAX_VALUE / 6) + " cells");
+    }
+  }
+
+  // packs the neighbor table of a grid, degree slots per cell, into a maze of
+  // the cells the mask keeps (every cell if it is null), leaving out cells
+  // next to themselves and neighbors listed twice
+  CsrMaze build(int[] table, int degree, int gridWidth, boolean[] mask) {
+    int gridSize = table.length / degree;
+    // the maze cell of every grid cell, or -1 if the mask drops it
+    int[] cellOf = new int[gridSize];
+    int size = 0;
+    for (int g = 0; g < gridSize; g++) {
+      cellOf[g] = mask == null || mask[g] ? size++ : -1;
+    }
+    int[] positions = new int[size];
+    for (int g = 0; g < gridSize; g++) {
+      if (cellOf[g] != -1) {
+        positions[cellOf[g]] = g;
+      }
+    }
+
+    int[] offsets = new int[size + 1];
+    int[] targets = new int[table.length];
+    int count = 0;
+    for (int cell = 0; cell < size; cell++) {
+      int g = positions[cell];
+      offsets[cell] = count;
+      for (int k = 0; k < degree; k++) {
+        int other = table[degree * g + k];
+        if (other != -1 && other != g && cellOf[other] != -1
+            && !this.listed(targets, offsets[cell], count, cellOf[other])) {
+          targets[count++] = cellOf[other];
+        }
+      }
+    }
+    offsets[size] = count;
+    return new CsrMaze(offsets, Arrays.copyOf(targets, count), positions, gridWidth);
+  }
+
+  // is the cell among targets from first up to but not including last?
+  boolean listed(int[] targets, int first, int last, int cell) {
+    for (int s = first; s < last; s++) {
+      if (targets[s] == cell) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,191 @@
+// Libraries used
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// represents a level-synchronous breadth first search that expands every
+// cell of a level at once on a fork-join pool. The cells of a level are split
+// into chunks, each chunk collects the cells it discovers in its own array,
+// and the chunks' arrays are joined into the next level. A cell is claimed by
+// whichever chunk flips its visited bit first, so every cell is discovered
+// exactly once, at the same distance a serial search gives it.
+// Only levels wider than a grain are worth splitting. In a perfect n x n maze
+// the levels stay narrow: a 2000 x 2000 maze has a median level of about 360
+// cells and none over 1024, a 4000 x 4000 one a median of about 720. So this
+// helps large mazes, and mazes with loops, whose frontiers are far wider;
+// small perfect mazes search about as fast serially
+class ParallelBfs {
+  // the most cells a chunk expands without splitting, unless another is given:
+  // below the median level of a large perfect maze, so most of its levels split
+  static final int GRAIN = 256;
+
+  // the maze being searched
+  IMazeGraph maze;
+  // the pool the levels are expanded on
+  ForkJoinPool pool;
+  // the most cells a chunk expands without splitting
+  int grain;
+
+  // 1 bit per cell, set once the cell has been discovered
+  AtomicLongArray visited;
+  // the number of steps from the start to every cell, or -1 if unreachable
+  int[] distance;
+  // the number of levels the last search expanded
+  int levels;
+
+  // Constructor
+  ParallelBfs(IMazeGraph maze, ForkJoinPool pool, int grain) {
+    if (grain < 1) {
+      throw new IllegalArgumentException("A chunk must hold at least one cell");
+    }
+    this.maze = maze;
+    this.pool = pool;
+    this.grain = grain;
+  }
+
+  // Constructor with GRAIN cell chunks on the common pool
+  ParallelBfs(IMazeGraph maze) {
+    this(maze, ForkJoinPool.commonPool(), ParallelBfs.GRAIN);
+  }
+
+  // the number of steps from from to every cell, or -1 for cells that cannot
+  // be reached
+  // EFFECT: searches the whole maze from from
+  int[] run(int from) {
+    this.visited = new AtomicLongArray((this.maze.size() + 63) / 64);
+    this.distance = new int[this.maze.size()];
+    Arrays.fill(this.distance, -1);
+
+    this.claim(from);
+    this.distance[from] = 0;
+    int[] frontier = new int[] { from };
+    this.levels = 0;
+    while (frontier.length > 0) {
+      this.levels++;
+      ExpandLevel level = new ExpandLevel(this, frontier, 0, frontier.length);
+      // a level too small to split is not worth handing to the pool, and
+      // neither is any level when the pool has only one worker
+      if (frontier.length > this.grain && this.pool.getParallelism() > 1) {
+        frontier = this.pool.invoke(level);
+      }
+      else {
+        frontier = level.compute();
+      }
+    }
+    return this.distance;
+  }
+
+  // is this the first time the cell has been claimed?
+  // EFFECT: marks the cell visited
+  boolean claim(int cell) {
+    int word = cell >>> 6;
+    long bit = 1L << (cell & 63);
+    long old = this.visited.get(word);
+    while ((old & bit) == 0) {
+      if (this.visited.compareAndSet(word, old, old | bit)) {
+        return true;
+      }
+      old = this.visited.get(word);
+    }
+    return false;
+  }
+}
+
+// represents the expansion of the cells of one level from first up to but
+// not including last, split in half until each piece is at most a grain.
+// Returns the cells the piece discovered
+class ExpandLevel extends RecursiveTask<int[]> {
+  private static final long serialVersionUID = 1L;
+
+  // the search this level belongs to
+  ParallelBfs bfs;
+  // the cells of the level, and the part of them this piece expands
+  int[] frontier;
+  int first;
+  int last;
+
+  // Constructor
+  ExpandLevel(ParallelBfs bfs, int[] frontier, int first, int last) {
+    this.bfs = bfs;
+    this.frontier = frontier;
+    this.first = first;
+    this.last = last;
+  }
+
+  // returns the cells discovered from this piece of the level, left half
+  // first
+  // EFFECT: claims them and records their distances
+  protected int[] compute() {
+    if (this.last - this.first > this.bfs.grain) {
+      int mid = (this.first + this.last) / 2;
+      ExpandLevel left = new ExpandLevel(this.bfs, this.frontier, this.first, mid);
+      left.fork();
+      int[] right = new ExpandLevel(this.bfs, this.frontier, mid, this.last).compute();
+      int[] result = left.join();
+      int length = result.length;
+      result = Arrays.copyOf(result, length + right.length);
+      System.arraycopy(right, 0, result, length, right.length);
+      return result;
+    }
+
+    IMazeGraph maze = this.bfs.maze;
+    int[] neighbors = new int[maze.maxDegree()];
+    int[] next = new int[(this.last - this.first) * maze.maxDegree()];
+    int count = 0;
+    for (int k = this.first; k < this.last; k++) {
+      int cell = this.frontier[k];
+      int found = maze.openNeighbors(cell, neighbors);
+      for (int j = 0; j < found; j++) {
+        if (this.bfs.claim(neighbors[j])) {
+          this.bfs.distance[neighbors[j]] = this.bfs.distance[cell] + 1;
+          next[count++] = neighbors[j];
+        }
+      }
+    }
+    return Arrays.copyOf(next, count);
+  }
+}
+
+// represents a measurement of how much faster a parallel breadth first
+// search of one maze runs as its pool grows. Run with a width and a height:
+//   java BfsSpeedup 4000 4000
+class BfsSpeedup {
+  // the pool sizes to measure, after a single worker
+  static final int[] PARALLELISM = new int[] { 4, 8, 16 };
+  // the number of timed searches for each pool size; the fastest counts
+  static final int ROUNDS = 5;
+
+  // EFFECT: prints the fastest search time and speedup for each pool size
+  public static void main(String[] args) {
+    int width = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int height = args.length > 1 ? Integer.parseInt(args[1]) : width;
+    CompactMaze maze = new ParallelGenerator().generate(width, height, 1L);
+    System.out.println(width + "x" + height + " maze, "
+        + Runtime.getRuntime().availableProcessors() + " processors available");
+
+    long serial = new BfsSpeedup().fastest(maze, 1);
+    System.out.println("parallelism 1: " + serial / 1000000 + " ms");
+    for (int parallelism : BfsSpeedup.PARALLELISM) {
+      long time = new BfsSpeedup().fastest(maze, parallelism);
+      System.out.println("parallelism " + parallelism + ": " + time / 1000000 + " ms, speedup "
+          + String.format("%.2f", (double) serial / time));
+    }
+  }
+
+  // the fastest of ROUNDS searches of the maze on a pool of the given size, in
+  // nanoseconds, after one untimed search to warm up
+  long fastest(IMazeGraph maze, int parallelism) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    ParallelBfs bfs = new ParallelBfs(maze, pool, ParallelBfs.GRAIN);
+    bfs.run(0);
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < BfsSpeedup.ROUNDS; round++) {
+      long start = System.nanoTime();
+      bfs.run(0);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    pool.shutdown();
+    return best;
+  }
+}
@@ -0,0 +1,318 @@
+// Libraries used
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javalib.impworld.*;
+import javalib.worldimages.*;
+
+// represents a maze drawn once into an image of its own, so a frame only has
+// to place the image instead of building a picture of every cell. The walls
+// never move, so after the first drawing only cells that change color are
+// drawn again, along with their own walls. Each cell's pixels hold its top
+// wall in their first row and its right wall in their last column, the same
+// walls Cell.drawCell draws
+class MazeCanvas {
+  // the maze being drawn
+  AGridMaze grid;
+  // the width and height of a cell, in pixels
+  int cellSize;
+  // the drawing
+  ComputedPixelImage image;
+
+  // Constructor: draws every cell in Cell.CELL_COLOR
+  MazeCanvas(AGridMaze grid, int cellSize) {
+    this.grid = grid;
+    this.cellSize = cellSize;
+    this.image = new ComputedPixelImage(grid.width * cellSize, grid.height * cellSize);
+    for (int i = 0; i < grid.size(); i++) {
+      this.paint(i, Cell.CELL_COLOR);
+    }
+  }
+
+  // Constructor with cells Cell.CELL_SIZE wide
+  MazeCanvas(AGridMaze grid) {
+    this(grid, Cell.CELL_SIZE);
+  }
+
+  // the width of the drawing, in pixels
+  int width() {
+    return this.grid.width * this.cellSize;
+  }
+
+  // the height of the drawing, in pixels
+  int height() {
+    return this.grid.height * this.cellSize;
+  }
+
+  // EFFECT: draws cell i again in the given color, with its walls
+  void paint(int i, Color color) {
+    int left = (i % this.grid.width) * this.cellSize;
+    int top = (i / this.grid.width) * this.cellSize;
+    boolean topWall = i >= this.grid.width && this.grid.hasTopWall(i);
+    boolean rightWall = i % this.grid.width != this.grid.width - 1 && this.grid.hasRightWall(i);
+
+    for (int y = 0; y < this.cellSize; y++) {
+      for (int x = 0; x < this.cellSize; x++) {
+        if ((y == 0 && topWall) || (x == this.cellSize - 1 && rightWall)) {
+          this.image.setPixel(left + x, top + y, Cell.WALL_COLOR);
+        }
+        else {
+          this.image.setPixel(left + x, top + y, color);
+        }
+      }
+    }
+  }
+
+  // returns the scene with the drawing placed in its top left corner
+  // EFFECT: places the drawing on the scene
+  WorldScene drawOn(WorldScene scene) {
+    scene.placeImageXY(this.image, this.width() / 2, this.height() / 2);
+    return scene;
+  }
+}
+
+// represents a window onto a maze too big to draw whole, which can be panned
+// and zoomed. Only the cells inside the window are drawn. Zoomed in, every
+// cell is a square of pixels with its walls drawn as lines. At one pixel a
+// cell there is no room for lines, so a cell nothing has been painted on is
+// shaded darker the more of its walls stand, which still shows the passages.
+// Zoomed out past one pixel a cell, every pixel stands for a square of cells
+// and shows the most recently introduced color among them, so a solution
+// stays visible over the search under it
+class MazeViewport {
+  // the most pixels a cell can take up is 2^MAX_ZOOM
+  static final int MAX_ZOOM = 5;
+  // walls are drawn as lines once a cell takes up 2^WALL_ZOOM pixels
+  static final int WALL_ZOOM = 1;
+  // the colors of an unpainted cell one pixel wide with 0 to 4 of its walls
+  // standing, from Cell.CELL_COLOR towards Cell.WALL_COLOR
+  static final Color[] WALL_SHADES = new Color[] { Cell.CELL_COLOR,
+      new Color(104, 104, 104), new Color(80, 80, 80), new Color(48, 48, 48),
+      new Color(16, 16, 16) };
+  // the color of the window outside the maze
+  static final Color OUTSIDE = Color.DARK_GRAY;
+
+  // the maze being shown
+  AGridMaze grid;
+  // the size of the window, in pixels
+  int viewWidth;
+  int viewHeight;
+  // 2^zoom pixels per cell when zoom is at least 0, otherwise 2^-zoom cells
+  // per pixel; never below minZoom, where the whole maze fits the window
+  int zoom;
+  int minZoom;
+  // the cell in the top left corner of the window
+  int left;
+  int top;
+
+  // the colors cells have been painted, index 0 being Cell.CELL_COLOR
+  ArrayList<Color> palette;
+  // the palette index of every cell's color
+  byte[] shades;
+  // the drawing of the window
+  ComputedPixelImage image;
+
+  // Constructor: shows the whole maze, as big as it fits
+  MazeViewport(AGridMaze grid, int viewWidth, int viewHeight) {
+    if (viewWidth < 1 || viewHeight < 1) {
+      throw new IllegalArgumentException("A viewport needs at least one pixel");
+    }
+    this.grid = grid;
+    this.viewWidth = viewWidth;
+    this.viewHeight = viewHeight;
+    this.palette = new ArrayList<Color>(Arrays.asList(Cell.CELL_COLOR));
+    this.shades = new byte[grid.size()];
+    this.image = new ComputedPixelImage(viewWidth, viewHeight);
+
+    this.zoom = MazeViewport.MAX_ZOOM;
+    while (this.zoom > -30 && (this.columns() < grid.width || this.rows() < grid.height)) {
+      this.zoom--;
+    }
+    this.minZoom = this.zoom;
+    this.left = 0;
+    this.top = 0;
+    this.render();
+  }
+
+  // the number of pixels a cell takes up, across and down
+  int pixelsPerCell() {
+    return this.zoom >= 0 ? 1 << this.zoom : 1;
+  }
+
+  // the number of cells a pixel stands for, across and down
+  int cellsPerPixel() {
+    return this.zoom >= 0 ? 1 : 1 << -this.zoom;
+  }
+
+  // the number of columns of cells the window shows, counting a partly shown one
+  int columns() {
+    return (this.viewWidth * this.cellsPerPixel() + this.pixelsPerCell() - 1)
+        / this.pixelsPerCell();
+  }
+
+  // the number of rows of cells the window shows, counting a partly shown one
+  int rows() {
+    return (this.viewHeight * this.cellsPerPixel() + this.pixelsPerCell() - 1)
+        / this.pixelsPerCell();
+  }
+
+  // EFFECT: moves the window by the given number of cells, keeping it on the
+  // maze, and draws it again
+  void pan(int columns, int rows) {
+    this.moveTo(this.left + columns, this.top + rows);
+    this.render();
+  }
+
+  // EFFECT: doubles or halves the size of the cells by the given number of
+  // steps, keeping the same cell in the middle, and draws the window again
+  void zoomBy(int steps) {
+    int middleColumn = this.left + this.columns() / 2;
+    int middleRow = this.top + this.rows() / 2;
+    this.zoom = Math.max(this.minZoom, Math.min(MazeViewport.MAX_ZOOM, this.zoom + steps));
+    this.moveTo(middleColumn - this.columns() / 2, middleRow - this.rows() / 2);
+    this.render();
+  }
+
+  // EFFECT: moves the window so the cell under the given pixel is in the
+  // middle, and draws it again
+  void centerOn(int x, int y) {
+    int column = this.left + x * this.cellsPerPixel() / this.pixelsPerCell();
+    int row = this.top + y * this.cellsPerPixel() / this.pixelsPerCell();
+    this.moveTo(column - this.columns() / 2, row - this.rows() / 2);
+    this.render();
+  }
+
+  // EFFECT: puts the given cell in the top left corner, as near as the window
+  // can get while staying on the maze
+  void moveTo(int column, int row) {
+    this.left = Math.max(0, Math.min(column, this.grid.width - this.columns()));
+    this.top = Math.max(0, Math.min(row, this.grid.height - this.rows()));
+  }
+
+  // EFFECT: colors cell i, drawing it again if it is in the window
+  void paint(int i, Color color) {
+    int shade = this.palette.indexOf(color);
+    if (shade == -1) {
+      if (this.palette.size() == 256) {
+        throw new IllegalStateException("A viewport can show at most 256 colors");
+      }
+      shade = this.palette.size();
+      this.palette.add(color);
+    }
+    this.shades[i] = (byte) shade;
+
+    int column = i % this.grid.width - this.left;
+    int row = i / this.grid.width - this.top;
+    if (column >= 0 && column < this.columns() && row >= 0 && row < this.rows()) {
+      if (this.zoom >= 0) {
+        this.drawCell(i);
+      }
+      else {
+        this.drawPixel(column / this.cellsPerPixel(), row / this.cellsPerPixel());
+      }
+    }
+  }
+
+  // EFFECT: draws cell i again after its walls changed, if it is in the
+  // window and the window is zoomed in far enough to show them
+  void redraw(int i) {
+    int column = i % this.grid.width - this.left;
+    int row = i / this.grid.width - this.top;
+    if (this.zoom >= 0 && column >= 0 && column < this.columns()
+        && row >= 0 && row < this.rows()) {
+      this.drawCell(i);
+    }
+  }
+
+  // EFFECT: draws every pixel of the window
+  void render() {
+    for (int y = 0; y < this.viewHeight; y++) {
+      for (int x = 0; x < this.viewWidth; x++) {
+        this.image.setPixel(x, y, MazeViewport.OUTSIDE);
+      }
+    }
+
+    if (this.zoom >= 0) {
+      int columns = Math.min(this.columns(), this.grid.width - this.left);
+      int rows = Math.min(this.rows(), this.grid.height - this.top);
+      for (int row = 0; row < rows; row++) {
+        for (int column = 0; column < columns; column++) {
+          this.drawCell((this.top + row) * this.grid.width + this.left + column);
+        }
+      }
+    }
+    else {
+      for (int y = 0; y < this.viewHeight; y++) {
+        for (int x = 0; x < this.viewWidth; x++) {
+          this.drawPixel(x, y);
+        }
+      }
+    }
+  }
+
+  // EFFECT: draws cell i, which is in the window, as a square of pixels cut
+  // off at the window's edge, or as one pixel shaded by its walls
+  void drawCell(int i) {
+    int size = this.pixelsPerCell();
+    int x0 = (i % this.grid.width - this.left) * size;
+    int y0 = (i / this.grid.width - this.top) * size;
+    boolean walls = this.zoom >= MazeViewport.WALL_ZOOM;
+    boolean topWall = walls && i >= this.grid.width && this.grid.hasTopWall(i);
+    boolean rightWall = walls && i % this.grid.width != this.grid.width - 1
+        && this.grid.hasRightWall(i);
+    Color color = this.palette.get(this.shades[i] & 0xFF);
+    if (this.zoom == 0 && this.shades[i] == 0) {
+      color = MazeViewport.WALL_SHADES[this.standingWalls(i)];
+    }
+
+    for (int y = y0; y < Math.min(y0 + size, this.viewHeight); y++) {
+      for (int x = x0; x < Math.min(x0 + size, this.viewWidth); x++) {
+        if ((y == y0 && topWall) || (x == x0 + size - 1 && rightWall)) {
+          this.image.setPixel(x, y, Cell.WALL_COLOR);
+        }
+        else {
+          this.image.setPixel(x, y, color);
+        }
+      }
+    }
+  }
+
+  // the number of cell i's four walls that stand, counting the border
+  int standingWalls(int i) {
+    int standing = 0;
+    for (int direction = AGridMaze.TOP; direction <= AGridMaze.LEFT; direction++) {
+      if (this.grid.openNeighbor(i, direction) == -1) {
+        standing++;
+      }
+    }
+    return standing;
+  }
+
+  // EFFECT: draws the pixel at (x, y) in the most recently introduced color
+  // of the cells it stands for, if it stands for any
+  void drawPixel(int x, int y) {
+    int cells = this.cellsPerPixel();
+    int firstColumn = this.left + x * cells;
+    int firstRow = this.top + y * cells;
+    if (firstColumn >= this.grid.width || firstRow >= this.grid.height) {
+      return;
+    }
+
+    int shade = 0;
+    for (int row = firstRow; row < Math.min(firstRow + cells, this.grid.height); row++) {
+      for (int column = firstColumn; column < Math.min(firstColumn + cells, this.grid.width);
+          column++) {
+        shade = Math.max(shade, this.shades[row * this.grid.width + column] & 0xFF);
+      }
+    }
+    this.image.setPixel(x, y, this.palette.get(shade));
+  }
+
+  // returns the scene with the window drawn over it
+  // EFFECT: places the drawing on the scene
+  WorldScene drawOn(WorldScene scene) {
+    scene.placeImageXY(this.image, this.viewWidth / 2, this.viewHeight / 2);
+    return scene;
+  }
+}
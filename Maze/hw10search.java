@@ -0,0 +1,576 @@
+// Libraries used
+import java.util.Arrays;
+
+// represents a search of a maze from one cell to another that can be paused
+// after any number of cells and picked up again later, so the Maze can
+// animate it a few cells per tick, or run to the end headless
+abstract class ASearch {
+  // the maze being searched
+  IMazeGraph maze;
+  // the cell the search starts from, and the cell it is looking for
+  int from;
+  int to;
+
+  // the workspace this search borrows its scratch space and frontiers from
+  SolverWorkspace workspace;
+  // which cells have been discovered, and the cell each was first reached
+  // from. The maze decides whether this lives on the heap or off it
+  ISearchScratch scratch;
+  // the cells in the order they were expanded, grown as needed, or null if
+  // the search does not keep them
+  int[] order;
+  // how many cells have been expanded so far
+  int expanded;
+  // has the search reached to?
+  boolean found;
+  // the open neighbors of the cell being expanded, reused for every cell
+  int[] neighbors;
+
+  // Constructor: takes over the workspace, which forgets any search that was
+  // using it before
+  ASearch(IMazeGraph maze, int from, int to, SolverWorkspace workspace) {
+    this.maze = maze;
+    this.from = from;
+    this.to = to;
+    this.workspace = workspace.reset();
+    this.scratch = workspace.scratch;
+    this.order = workspace.order;
+    this.expanded = 0;
+    this.found = false;
+    this.neighbors = workspace.neighbors;
+
+    this.scratch.visit(from, from);
+  }
+
+  // stops keeping the order cells are expanded in, so a search of a huge maze
+  // needs no heap memory in proportion to its size
+  // EFFECT: drops order
+  ASearch untracked() {
+    this.order = null;
+    return this;
+  }
+
+  // EFFECT: counts the cell as expanded, adding it to order if it is kept
+  void expand(int cell) {
+    if (this.order != null) {
+      if (this.expanded == this.order.length) {
+        this.order = Arrays.copyOf(this.order, Math.min(2 * this.order.length,
+            this.maze.size()));
+        this.workspace.order = this.order;
+      }
+      this.order[this.expanded] = cell;
+    }
+    this.expanded++;
+  }
+
+  // is there nothing left for this search to do?
+  abstract boolean isDone();
+
+  // expands at most budget more cells, returning whether the search is done
+  // EFFECT: adds the expanded cells to order, discovering their neighbors
+  abstract boolean step(int budget);
+
+  // runs the search to the end and returns how many cells it expanded
+  int run() {
+    while (!this.step(Integer.MAX_VALUE)) {
+      // keep stepping
+    }
+    return this.expanded;
+  }
+
+  // the cells from from to to, or an empty path if the search has not found to
+  int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+    return new ArrayUtils().reconstruct(this.scratch, this.from, this.to);
+  }
+}
+
+// represents a depth first or breadth first search of a maze
+class MazeSearch extends ASearch {
+  // true for a depth first search, false for a breadth first search
+  boolean depthFirst;
+  // the cells discovered but not expanded yet
+  IIntCollection frontier;
+
+  // Constructor
+  MazeSearch(IMazeGraph maze, int from, int to, boolean depthFirst,
+      SolverWorkspace workspace) {
+    super(maze, from, to, workspace);
+    this.depthFirst = depthFirst;
+
+    if (depthFirst) {
+      this.frontier = workspace.stack;
+    }
+    else {
+      this.frontier = workspace.queue;
+    }
+    this.frontier.add(from);
+  }
+
+  // Constructor with a workspace of its own
+  MazeSearch(IMazeGraph maze, int from, int to, boolean depthFirst) {
+    this(maze, from, to, depthFirst, new SolverWorkspace(maze));
+  }
+
+  // is there nothing left for this search to do?
+  boolean isDone() {
+    return this.found || this.frontier.isEmpty();
+  }
+
+  // expands at most budget more cells, returning whether the search is done
+  // EFFECT: moves cells from the frontier to order, discovering their neighbors
+  boolean step(int budget) {
+    for (int n = 0; n < budget && !this.isDone(); n++) {
+      int next = this.frontier.remove();
+      this.expand(next);
+      if (next == this.to) {
+        this.found = true;
+      }
+      else {
+        int count = this.maze.openNeighbors(next, this.neighbors);
+        for (int k = 0; k < count; k++) {
+          int neighbor = this.neighbors[k];
+          if (!this.scratch.isVisited(neighbor)) {
+            this.scratch.visit(neighbor, next);
+            this.frontier.add(neighbor);
+          }
+        }
+      }
+    }
+    return this.isDone();
+  }
+}
+
+// represents an A* search of a grid maze, which always expands the cell with
+// the smallest distance so far plus Manhattan distance left to go
+class AStarSearch extends ASearch {
+  // the grid being searched, for the cells' rows and columns
+  AGridMaze grid;
+  // the cells discovered but not expanded yet, keyed by estimated total cost,
+  // with each cell's distance from from kept in the low half of its key
+  IntMinHeap frontier;
+
+  // Constructor
+  AStarSearch(AGridMaze grid, int from, int to, SolverWorkspace workspace) {
+    super(grid, from, to, workspace);
+    this.grid = grid;
+    this.frontier = workspace.heap;
+    this.frontier.add(this.key(from, 0), from);
+  }
+
+  // Constructor with a workspace of its own
+  AStarSearch(AGridMaze grid, int from, int to) {
+    this(grid, from, to, new SolverWorkspace(grid));
+  }
+
+  // the Manhattan distance from cell i to to, which never overestimates
+  int estimate(int i) {
+    return Math.abs(i % this.grid.width - this.to % this.grid.width)
+        + Math.abs(i / this.grid.width - this.to / this.grid.width);
+  }
+
+  // orders cells by estimated total cost, breaking ties towards the cell that
+  // has come further, since it is closer to to
+  long key(int i, int distance) {
+    return ((long) (distance + this.estimate(i)) << 32) | (Integer.MAX_VALUE - distance);
+  }
+
+  // the distance a key was made with
+  int distanceOf(long key) {
+    return Integer.MAX_VALUE - (int) key;
+  }
+
+  // is there nothing left for this search to do?
+  boolean isDone() {
+    return this.found || this.frontier.isEmpty();
+  }
+
+  // expands at most budget more cells, returning whether the search is done
+  // EFFECT: moves the cheapest cells from the frontier to order
+  boolean step(int budget) {
+    for (int n = 0; n < budget && !this.isDone(); n++) {
+      int distance = this.distanceOf(this.frontier.peekKey());
+      int next = this.frontier.remove();
+      this.expand(next);
+      if (next == this.to) {
+        this.found = true;
+      }
+      else {
+        int count = this.maze.openNeighbors(next, this.neighbors);
+        for (int k = 0; k < count; k++) {
+          int neighbor = this.neighbors[k];
+          // a maze is a tree, so the first way into a cell is the only one
+          if (!this.scratch.isVisited(neighbor)) {
+            this.scratch.visit(neighbor, next);
+            this.frontier.add(this.key(neighbor, distance + 1), neighbor);
+          }
+        }
+      }
+    }
+    return this.isDone();
+  }
+}
+
+// represents a breadth first search from both ends of a maze at once, which
+// stops as soon as the two searches touch
+class BidirectionalSearch extends ASearch {
+  // the cells discovered from each end but not expanded yet
+  IntQueue forward;
+  IntQueue backward;
+  // the cell each cell was first reached from by the search starting at to
+  ISearchScratch child;
+  // the cell where the two searches met, or -1
+  int meeting;
+
+  // Constructor
+  BidirectionalSearch(IMazeGraph maze, int from, int to, SolverWorkspace workspace) {
+    super(maze, from, to, workspace);
+    this.forward = workspace.queue;
+    this.backward = workspace.backwardQueue();
+    this.child = workspace.backwardScratch();
+    this.meeting = -1;
+
+    this.child.visit(to, to);
+    this.forward.add(from);
+    this.backward.add(to);
+    if (from == to) {
+      this.meeting = to;
+      this.found = true;
+    }
+  }
+
+  // Constructor with a workspace of its own
+  BidirectionalSearch(IMazeGraph maze, int from, int to) {
+    this(maze, from, to, new SolverWorkspace(maze));
+  }
+
+  // is there nothing left for this search to do?
+  boolean isDone() {
+    return this.found || this.forward.isEmpty() || this.backward.isEmpty();
+  }
+
+  // expands at most budget more cells, always from the end with the smaller
+  // frontier, returning whether the search is done
+  // EFFECT: adds the expanded cells to order, discovering their neighbors
+  boolean step(int budget) {
+    for (int n = 0; n < budget && !this.isDone(); n++) {
+      if (this.forward.size <= this.backward.size) {
+        this.expandSide(this.forward, this.scratch, this.child);
+      }
+      else {
+        this.expandSide(this.backward, this.child, this.scratch);
+      }
+    }
+    return this.isDone();
+  }
+
+  // EFFECT: expands the next cell of one side's frontier, recording links in
+  // that side's scratch space and stopping at the first cell the other side
+  // has seen
+  void expandSide(IntQueue frontier, ISearchScratch links, ISearchScratch otherLinks) {
+    int next = frontier.remove();
+    this.expand(next);
+    int count = this.maze.openNeighbors(next, this.neighbors);
+    for (int k = 0; k < count; k++) {
+      int neighbor = this.neighbors[k];
+      if (!links.isVisited(neighbor)) {
+        links.visit(neighbor, next);
+        if (otherLinks.isVisited(neighbor)) {
+          this.meeting = neighbor;
+          this.found = true;
+          return;
+        }
+        frontier.add(neighbor);
+      }
+    }
+  }
+
+  // the cells from from to the meeting cell, followed by the cells from there
+  // to to
+  int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+
+    int[] head = new ArrayUtils().reconstruct(this.scratch, this.from, this.meeting);
+    int[] tail = new ArrayUtils().reconstruct(this.child, this.to, this.meeting);
+    int[] result = Arrays.copyOf(head, head.length + tail.length - 1);
+    for (int i = 1; i < tail.length; i++) {
+      result[head.length + i - 1] = tail[tail.length - 1 - i];
+    }
+    return result;
+  }
+}
+
+// represents everything a search needs for every cell or frontier entry,
+// allocated once and handed from one search of a maze to the next, so solving
+// the same maze again and again makes no garbage. Resetting it is cheap: the
+// maze's scratch space is stamped by generation, and the frontiers keep their
+// arrays when they are cleared. Only one search can use it at a time
+class SolverWorkspace {
+  // the maze the workspace is sized to
+  IMazeGraph maze;
+  // the visited cells and parents of the search from the start
+  ISearchScratch scratch;
+  // the expansion order, which searches grow and hand back
+  int[] order;
+  // the open neighbors of the cell being expanded
+  int[] neighbors;
+  // the frontiers of depth first, breadth first and A* searches
+  IntStack stack;
+  IntQueue queue;
+  IntMinHeap heap;
+  // the scratch space and frontier of the backward half of a bidirectional
+  // search, made the first time one runs
+  ISearchScratch backward;
+  IntQueue backwardFrontier;
+
+  // Constructor
+  SolverWorkspace(IMazeGraph maze) {
+    this.maze = maze;
+    this.scratch = maze.newScratch();
+    this.order = new int[Math.min(maze.size(), 1024)];
+    this.neighbors = new int[maze.maxDegree()];
+    this.stack = new IntStack();
+    this.queue = new IntQueue();
+    this.heap = new IntMinHeap();
+  }
+
+  // returns this workspace, ready for a new search
+  // EFFECT: forgets the visited cells and frontiers of the last one
+  SolverWorkspace reset() {
+    this.scratch.reset();
+    this.stack.clear();
+    this.queue.clear();
+    this.heap.clear();
+    if (this.backward != null) {
+      this.backward.reset();
+      this.backwardFrontier.clear();
+    }
+    return this;
+  }
+
+  // the scratch space for the backward half of a bidirectional search
+  // EFFECT: makes it and its frontier the first time it is asked for
+  ISearchScratch backwardScratch() {
+    if (this.backward == null) {
+      this.backward = this.maze.newScratch();
+      this.backwardFrontier = new IntQueue();
+    }
+    return this.backward;
+  }
+
+  // the frontier for the backward half of a bidirectional search
+  // EFFECT: makes it and its scratch space the first time it is asked for
+  IntQueue backwardQueue() {
+    this.backwardScratch();
+    return this.backwardFrontier;
+  }
+}
+
+// represents a binary min-heap of ints ordered by long keys
+class IntMinHeap {
+  // the keys and values, with the smallest key at 0 and the children of i at
+  // 2 * i + 1 and 2 * i + 2
+  long[] keys;
+  int[] values;
+  // the number of values in the heap
+  int size;
+
+  // Constructor
+  IntMinHeap() {
+    this.keys = new long[16];
+    this.values = new int[16];
+    this.size = 0;
+  }
+
+  // Is this heap empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // EFFECT: removes every value, keeping the arrays for reuse
+  void clear() {
+    this.size = 0;
+  }
+
+  // EFFECT: adds the value with the given key
+  void add(long key, int value) {
+    if (this.size == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+      this.values = Arrays.copyOf(this.values, 2 * this.size);
+    }
+
+    int i = this.size++;
+    while (i > 0 && this.keys[(i - 1) / 2] > key) {
+      this.keys[i] = this.keys[(i - 1) / 2];
+      this.values[i] = this.values[(i - 1) / 2];
+      i = (i - 1) / 2;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+  }
+
+  // Returns the smallest key
+  long peekKey() {
+    if (this.size == 0) {
+      throw new IndexOutOfBoundsException("Cannot peek into an empty heap");
+    }
+    return this.keys[0];
+  }
+
+  // Returns the value with the smallest key
+  // EFFECT: removes that value
+  int remove() {
+    if (this.size == 0) {
+      throw new IndexOutOfBoundsException("Cannot remove from an empty heap");
+    }
+
+    int result = this.values[0];
+    long key = this.keys[--this.size];
+    int value = this.values[this.size];
+    int i = 0;
+    while (2 * i + 1 < this.size) {
+      int smaller = 2 * i + 1;
+      if (smaller + 1 < this.size && this.keys[smaller + 1] < this.keys[smaller]) {
+        smaller++;
+      }
+      if (this.keys[smaller] >= key) {
+        break;
+      }
+      this.keys[i] = this.keys[smaller];
+      this.values[i] = this.values[smaller];
+      i = smaller;
+    }
+    this.keys[i] = key;
+    this.values[i] = value;
+    return result;
+  }
+}
+
+// represents an index over a perfect maze, which is a spanning tree of its
+// cells, that answers distance and path queries between any two cells
+// without searching. The tree is rooted once in O(n); every cell keeps its
+// parent, its depth and a jump pointer to a far ancestor, laid out so that
+// any ancestor, and so the lowest common ancestor of two cells, is reached in
+// O(log n) jumps
+class LcaIndex {
+  // the cell the tree hangs from
+  int root;
+  // the parent of every cell (the root is its own parent)
+  int[] parent;
+  // the number of steps from the root to every cell, or -1 if unreachable
+  int[] depth;
+  // a far ancestor of every cell
+  int[] jump;
+
+  // Constructor: roots the maze at the given cell
+  LcaIndex(IMazeGraph maze, int root) {
+    this.root = root;
+    this.parent = new int[maze.size()];
+    this.depth = new int[maze.size()];
+    this.jump = new int[maze.size()];
+    Arrays.fill(this.depth, -1);
+
+    // breadth first, so every cell's parent is finished before the cell
+    int[] queue = new int[maze.size()];
+    int[] neighbors = new int[maze.maxDegree()];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = root;
+    this.parent[root] = root;
+    this.jump[root] = root;
+    this.depth[root] = 0;
+    while (head < tail) {
+      int cell = queue[head++];
+      int count = maze.openNeighbors(cell, neighbors);
+      for (int k = 0; k < count; k++) {
+        int child = neighbors[k];
+        if (this.depth[child] == -1) {
+          this.depth[child] = this.depth[cell] + 1;
+          this.parent[child] = cell;
+          this.jump[child] = this.jumpFor(cell);
+          queue[tail++] = child;
+        }
+      }
+    }
+  }
+
+  // the jump pointer for a child of p: if p's jump and its jump's jump cover
+  // equally long stretches, the child skips both, otherwise it points at p
+  int jumpFor(int p) {
+    int j = this.jump[p];
+    if (this.depth[p] - this.depth[j] == this.depth[j] - this.depth[this.jump[j]]) {
+      return this.jump[j];
+    }
+    return p;
+  }
+
+  // the ancestor of cell at the given depth, which must be at most its own
+  int ancestor(int cell, int targetDepth) {
+    while (this.depth[cell] > targetDepth) {
+      if (this.depth[this.jump[cell]] >= targetDepth) {
+        cell = this.jump[cell];
+      }
+      else {
+        cell = this.parent[cell];
+      }
+    }
+    return cell;
+  }
+
+  // the deepest cell that is an ancestor of both a and b, or -1 if either
+  // cannot be reached from the root
+  int lca(int a, int b) {
+    if (this.depth[a] == -1 || this.depth[b] == -1) {
+      return -1;
+    }
+
+    a = this.ancestor(a, this.depth[b]);
+    b = this.ancestor(b, this.depth[a]);
+    // a and b are equally deep now, and so are their jumps
+    while (a != b) {
+      if (this.jump[a] != this.jump[b]) {
+        a = this.jump[a];
+        b = this.jump[b];
+      }
+      else {
+        a = this.parent[a];
+        b = this.parent[b];
+      }
+    }
+    return a;
+  }
+
+  // the number of steps on the path between a and b, or -1 if there is none
+  int distance(int a, int b) {
+    int meet = this.lca(a, b);
+    if (meet == -1) {
+      return -1;
+    }
+    return this.depth[a] + this.depth[b] - 2 * this.depth[meet];
+  }
+
+  // the cells on the path from a to b, both included, or an empty path if
+  // there is none
+  int[] path(int a, int b) {
+    int meet = this.lca(a, b);
+    if (meet == -1) {
+      return new int[0];
+    }
+
+    int[] result = new int[this.depth[a] + this.depth[b] - 2 * this.depth[meet] + 1];
+    int i = 0;
+    for (int cell = a; cell != meet; cell = this.parent[cell]) {
+      result[i++] = cell;
+    }
+    result[i] = meet;
+    int j = result.length - 1;
+    for (int cell = b; cell != meet; cell = this.parent[cell]) {
+      result[j--] = cell;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,238 @@
+// Libraries used
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// represents the bookkeeping a search keeps for every cell: whether it has
+// been visited, and which cell it was first reached from
+interface ISearchScratch {
+  // the number of cells this scratch space covers
+  int size();
+
+  // EFFECT: forgets every visited cell
+  void reset();
+
+  // has the cell been visited since the last reset?
+  boolean isVisited(int cell);
+
+  // EFFECT: marks the cell visited, reached from parent
+  void visit(int cell, int parent);
+
+  // the cell the given visited cell was reached from
+  int parent(int cell);
+}
+
+// represents search scratch space in a plain int array on the heap
+class HeapScratch implements ISearchScratch {
+  // the parent of every visited cell, or -1
+  int[] parents;
+
+  // Constructor
+  HeapScratch(int size) {
+    this.parents = new int[size];
+    Arrays.fill(this.parents, -1);
+  }
+
+  // Constructor around the parent array of a finished search
+  HeapScratch(int[] parents) {
+    this.parents = parents;
+  }
+
+  // the number of cells this scratch space covers
+  public int size() {
+    return this.parents.length;
+  }
+
+  // EFFECT: forgets every visited cell
+  public void reset() {
+    Arrays.fill(this.parents, -1);
+  }
+
+  // has the cell been visited since the last reset?
+  public boolean isVisited(int cell) {
+    return this.parents[cell] != -1;
+  }
+
+  // EFFECT: marks the cell visited, reached from parent
+  public void visit(int cell, int parent) {
+    this.parents[cell] = parent;
+  }
+
+  // the cell the given visited cell was reached from
+  public int parent(int cell) {
+    return this.parents[cell];
+  }
+}
+
+// represents search scratch space on the heap that forgets every visited cell
+// in constant time: a cell counts as visited only if its stamp matches the
+// current generation, so a reset just starts a new generation
+class StampedScratch implements ISearchScratch {
+  // the generation each cell was last visited in
+  int[] stamps;
+  // the parent of every cell visited in the current generation
+  int[] parents;
+  // the current generation, never 0 so fresh stamps are never current
+  int generation;
+
+  // Constructor
+  StampedScratch(int size) {
+    this.stamps = new int[size];
+    this.parents = new int[size];
+    this.generation = 1;
+  }
+
+  // the number of cells this scratch space covers
+  public int size() {
+    return this.stamps.length;
+  }
+
+  // EFFECT: forgets every visited cell by starting a new generation. The
+  // stamps are only cleared once every 2^31 resets, when generations run out
+  public void reset() {
+    if (this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.stamps, 0);
+      this.generation = 0;
+    }
+    this.generation++;
+  }
+
+  // has the cell been visited since the last reset?
+  public boolean isVisited(int cell) {
+    return this.stamps[cell] == this.generation;
+  }
+
+  // EFFECT: marks the cell visited, reached from parent
+  public void visit(int cell, int parent) {
+    this.stamps[cell] = this.generation;
+    this.parents[cell] = parent;
+  }
+
+  // the cell the given visited cell was reached from
+  public int parent(int cell) {
+    return this.parents[cell];
+  }
+}
+
+// represents search scratch space outside the Java heap, so searching a huge
+// maze puts nothing on the heap for the garbage collector to trace or copy.
+// Visited cells are a bitset; parents are ints split over several direct
+// buffers, since one buffer holds at most 2 GB. The bitset words a search
+// has touched are listed as it goes, so a reset only clears those
+class OffHeapScratch implements ISearchScratch {
+  // the number of parents in each chunk
+  static final int CHUNK_CELLS = 1 << 26;
+
+  // the number of cells covered
+  int size;
+  // 1 bit per cell, in longs
+  ByteBuffer visited;
+  // the index of every word of visited that is not zero, as ints
+  ByteBuffer dirty;
+  // the number of words listed in dirty
+  int dirtyWords;
+  // 4 bytes per cell, CHUNK_CELLS cells per chunk
+  ByteBuffer[] parents;
+
+  // Constructor
+  OffHeapScratch(int size) {
+    this.size = size;
+    this.visited = ByteBuffer.allocateDirect((size + 63) / 64 * 8)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    this.dirty = ByteBuffer.allocateDirect((size + 63) / 64 * 4).order(ByteOrder.nativeOrder());
+    this.dirtyWords = 0;
+    this.parents = new ByteBuffer[(size + OffHeapScratch.CHUNK_CELLS - 1)
+        / OffHeapScratch.CHUNK_CELLS];
+    for (int c = 0; c < this.parents.length; c++) {
+      int cells = Math.min(OffHeapScratch.CHUNK_CELLS, size - c * OffHeapScratch.CHUNK_CELLS);
+      this.parents[c] = ByteBuffer.allocateDirect(4 * cells).order(ByteOrder.nativeOrder());
+    }
+  }
+
+  // the number of cells this scratch space covers
+  public int size() {
+    return this.size;
+  }
+
+  // EFFECT: forgets every visited cell by clearing only the words the last
+  // search touched. Parents are only read for visited cells, so they are left
+  // as they are
+  public void reset() {
+    for (int k = 0; k < this.dirtyWords; k++) {
+      this.visited.putLong(8 * this.dirty.getInt(4 * k), 0L);
+    }
+    this.dirtyWords = 0;
+  }
+
+  // has the cell been visited since the last reset?
+  public boolean isVisited(int cell) {
+    return (this.visited.getLong(8 * (cell >>> 6)) & (1L << cell)) != 0;
+  }
+
+  // EFFECT: marks the cell visited, reached from parent, listing its word of
+  // visited the first time a cell in it is visited
+  public void visit(int cell, int parent) {
+    int word = cell >>> 6;
+    long bits = this.visited.getLong(8 * word);
+    if (bits == 0) {
+      this.dirty.putInt(4 * this.dirtyWords++, word);
+    }
+    this.visited.putLong(8 * word, bits | (1L << cell));
+    this.parents[cell / OffHeapScratch.CHUNK_CELLS]
+        .putInt(4 * (cell % OffHeapScratch.CHUNK_CELLS), parent);
+  }
+
+  // the cell the given visited cell was reached from
+  public int parent(int cell) {
+    return this.parents[cell / OffHeapScratch.CHUNK_CELLS]
+        .getInt(4 * (cell % OffHeapScratch.CHUNK_CELLS));
+  }
+}
+
+// represents a grid maze whose wall bits live in a byte buffer outside the
+// heap, 4 cells to a byte, laid out like a maze file's. Its searches keep
+// their scratch space outside the heap too
+abstract class ABufferMaze extends AGridMaze {
+  // the wall bits
+  ByteBuffer bits;
+
+  // Constructor
+  ABufferMaze(int width, int height, ByteBuffer bits) {
+    super(width, height);
+    this.bits = bits;
+    this.bits.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // the RIGHT_WALL and BOTTOM_WALL bits of cell i
+  int wallBits(int i) {
+    return (this.bits.get(i >>> 2) >>> ((i & 3) << 1)) & 3;
+  }
+
+  // EFFECT: knocks down the given RIGHT_WALL or BOTTOM_WALL of cell i
+  void clearWall(int i, int wall) {
+    this.bits.put(i >>> 2, (byte) (this.bits.get(i >>> 2) & ~(wall << ((i & 3) << 1))));
+  }
+
+  // the wall bits of cells 32 * k .. 32 * k + 31, as stored
+  long wallWord(int k) {
+    return this.bits.getLong(8 * k);
+  }
+
+  // scratch space for searching this maze, outside the heap
+  public ISearchScratch newScratch() {
+    return new OffHeapScratch(this.size());
+  }
+}
+
+// represents a maze kept entirely outside the Java heap, for boards of
+// hundreds of millions of cells
+class OffHeapMaze extends ABufferMaze {
+  // Constructor: a width x height maze with every wall standing
+  OffHeapMaze(int width, int height) {
+    super(width, height, ByteBuffer.allocateDirect(
+        (int) new MazeFile().bitmapSize(width, height)));
+    for (int k = 0; k < this.bits.capacity(); k += 8) {
+      this.bits.putLong(k, -1L);
+    }
+  }
+}
@@ -2,9 +2,9 @@
 // Libraries used
 import java.awt.Color;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import javalib.impworld.*;
+import javalib.worldimages.Posn;
 
 // Represents a Maze
 class Maze extends World {
@@ -12,86 +12,285 @@ class Maze extends World {
   ArrayList<Cell> board;
   // The Maze's edges
   ArrayList<Edge> edges;
+  // The compact form of the Maze, built from the board when it is first
+  // searched unless the Maze was made without Cells
+  CompactMaze grid;
+  // the number of cells across and down
+  int width;
+  int height;
 
-  // 0 for not searching, 1 for dfs, 2 for bfs
+  // 0 for not searching, 1 for dfs, 2 for bfs, 3 for A*, 4 for bidirectional
+  // bfs
   int searchAlgo;
+  // the search in progress, or null
+  ASearch search;
+  // the arrays every search of the grid borrows, made with the first one
+  SolverWorkspace workspace;
+  // the drawing of the grid, made with the first scene
+  MazeCanvas canvas;
+  // the window onto the grid, for mazes too big to draw whole, or null
+  MazeViewport viewport;
+  // how many cells the search expands on every tick
+  int cellsPerTick;
+  // Kruskal's algorithm building the grid on screen, or null once it is built
+  KruskalBuilder builder;
+  // how many edges the builder looks at on every tick
+  int edgesPerTick;
+  // how many of the search's expanded cells have been colored in
+  int colored;
+  // the cells from the first cell to the last one, once the search finds it
+  int[] solution;
 
   // Constructor
-  Maze(ArrayList<Cell> board, ArrayList<Edge> edges) {
+  Maze(ArrayList<Cell> board, ArrayList<Edge> edges, int width, int height) {
     this.board = board;
     this.edges = edges;
+    this.width = width;
+    this.height = height;
     this.searchAlgo = 0;
+    this.cellsPerTick = 1;
+    this.edgesPerTick = 1;
+    this.colored = 0;
+  }
+
+  // Constructor for a board of the default size
+  Maze(ArrayList<Cell> board, ArrayList<Edge> edges) {
+    this(board, edges, Maze.BOARD_WIDTH, Maze.BOARD_HEIGHT);
+  }
+
+  // Constructor for a Maze that only exists in compact form
+  Maze(CompactMaze grid) {
+    this(new ArrayList<Cell>(), new ArrayList<Edge>(), grid.width, grid.height);
+    this.grid = grid;
+  }
+
+  // Constructor for a Maze too big to draw whole, seen through a window of
+  // the given size in pixels that can be panned and zoomed
+  Maze(CompactMaze grid, int viewWidth, int viewHeight) {
+    this(grid);
+    this.viewport = new MazeViewport(grid, viewWidth, viewHeight);
   }
 
-  // Represents the Board's size
-  public static int BOARD_WIDTH = 10;
-  public static int BOARD_HEIGHT = 10;
+  // the colors of searched cells and of the solution
+  static final Color SEARCH_COLOR = Color.BLUE;
+  static final Color PATH_COLOR = Color.WHITE;
 
-  // makes the scene
+  // the keys that pick each searchAlgo, starting from 1
+  static final String SEARCH_KEYS = "dbat";
+  // the keys that pan a viewport left, down, up and right
+  static final String PAN_KEYS = "hjkl";
+
+  // the size of a board when none is given
+  public static final int BOARD_WIDTH = 10;
+  public static final int BOARD_HEIGHT = 10;
+
+  // makes the scene by placing the Maze's drawing, which only changes where
+  // cells have been painted since the last scene
   @Override
   public WorldScene makeScene() {
-    WorldScene background = new WorldScene(Maze.BOARD_WIDTH * Cell.CELL_SIZE,
-        Maze.BOARD_HEIGHT * Cell.CELL_SIZE);
-    new ArrayUtils().drawWorldScene(board, background);
+    if (this.viewport != null) {
+      return this.viewport.drawOn(new WorldScene(this.viewport.viewWidth,
+          this.viewport.viewHeight));
+    }
+
+    WorldScene background = new WorldScene(this.width * Cell.CELL_SIZE,
+        this.height * Cell.CELL_SIZE);
+    if (this.grid == null && this.board.isEmpty()) {
+      return background;
+    }
+
+    if (this.canvas == null) {
+      this.canvas = new MazeCanvas(this.grid());
+      for (Cell c : this.board) {
+        this.canvas.paint(c.id, c.color);
+      }
+    }
+    return this.canvas.drawOn(background);
+  }
+
+  // the compact form of the Maze
+  // EFFECT: builds it from the board the first time it is asked for
+  CompactMaze grid() {
+    if (this.grid == null) {
+      this.grid = CompactMaze.fromBoard(this.board, this.width, this.height);
+    }
+    return this.grid;
+  }
 
-    return background;
+  // returns this Maze, which starts with every wall of its grid standing and
+  // is built on screen by Kruskal's algorithm over the grid's weights,
+  // edgesPerTick edges every tick, before it can be searched. The board's
+  // edges follow the grid's walls, so both describe the same maze
+  // EFFECT: knocks every wall back up and starts the builder
+  Maze buildOnScreen(int edgesPerTick) {
+    this.builder = new KruskalBuilder(this.grid());
+    this.matchBoard();
+    this.edgesPerTick = edgesPerTick;
+    this.canvas = null;
+    if (this.viewport != null) {
+      this.viewport.render();
+    }
+    return this;
   }
 
   @Override
-  // on tick method
+  // on tick method: while the maze is being built, knocks down the walls of
+  // the next edgesPerTick edges; after that, advances the current search by
+  // cellsPerTick cells. Either way the work done each frame does not grow
+  // with the size of the maze
   public void onTick() {
-    HashMap<Cell, Cell> cameFromEdge = new HashMap<Cell, Cell>();
-    ICollection<Cell> workList = new Stack<Cell>();
-    if (this.searchAlgo == 1) {
-      workList = new Stack<Cell>();
-      workList.add(this.board.get(0));
+    if (this.builder != null) {
+      int count = this.builder.step(this.edgesPerTick);
+      for (int k = 0; k < count; k++) {
+        this.redraw(this.builder.changed[k]);
+      }
+      if (this.builder.done()) {
+        this.builder = null;
+        this.matchBoard();
+      }
+      return;
     }
 
-    if (this.searchAlgo == 2) {
-      workList = new Queue<Cell>();
-      workList.add(this.board.get(0));
+    if (this.searchAlgo == 0) {
+      return;
     }
 
-    while (!workList.isEmpty()) {
-      Cell next = workList.remove();
+    if (this.search == null) {
+      this.search = this.newSearch(0, this.grid().size() - 1);
+    }
 
-      if (cameFromEdge.containsValue(next)) {
-        continue;
+    this.search.step(this.cellsPerTick);
+    for (; this.colored < this.search.expanded; this.colored++) {
+      this.paint(this.search.order[this.colored], Maze.SEARCH_COLOR);
+    }
 
+    if (this.search.found && this.solution == null) {
+      this.solution = this.search.path();
+      for (int i : this.solution) {
+        this.paint(i, Maze.PATH_COLOR);
       }
-      else if (next == this.board.get(this.board.size() - 1)) {
-        next.color = Color.BLUE;
-        // new ArrayUtils().reconstruct(cameFromEdge, next, this.board.get(0));
-        break;
+    }
+  }
+
+  // makes the search picked by searchAlgo, from one cell of the grid to
+  // another, in the Maze's workspace
+  // EFFECT: makes the workspace if this is the first search
+  ASearch newSearch(int from, int to) {
+    if (this.workspace == null) {
+      this.workspace = new SolverWorkspace(this.grid);
+    }
+
+    if (this.searchAlgo == 3) {
+      return new AStarSearch(this.grid, from, to, this.workspace);
+    }
+    else if (this.searchAlgo == 4) {
+      return new BidirectionalSearch(this.grid, from, to, this.workspace);
+    }
+    else {
+      return new MazeSearch(this.grid, from, to, this.searchAlgo == 1, this.workspace);
+    }
+  }
+
+  // EFFECT: colors cell i of the board, if the Maze has Cells, and of the
+  // drawing, if it has been made
+  void paint(int i, Color color) {
+    if (!this.board.isEmpty()) {
+      this.board.get(i).color = color;
+    }
+    if (this.canvas != null) {
+      this.canvas.paint(i, color);
+    }
+    if (this.viewport != null) {
+      this.viewport.paint(i, color);
+    }
+  }
+
+  // EFFECT: draws cell i of the drawing and the window again, in the color of
+  // a maze that is still being built, after its walls changed
+  void redraw(int i) {
+    if (this.canvas != null) {
+      this.canvas.paint(i, Cell.CELL_COLOR);
+    }
+    if (this.viewport != null) {
+      this.viewport.redraw(i);
+    }
+  }
+
+  // EFFECT: stands every edge of the board up, or knocks it down, to match
+  // the grid's walls
+  void matchBoard() {
+    for (Cell c : this.board) {
+      if (c.rightEdge != null) {
+        c.rightEdge.solid = this.grid.hasRightWall(c.id);
       }
-      else {
-        next.color = Color.BLUE;
-        for (Edge e : next.listifyEdges()) {
-          if (e.startCell == next) {
-            workList.add(e.endCell);
-            cameFromEdge.put(e.endCell, next);
-          }
-
-          if (e.endCell == next) {
-            workList.add(e.startCell);
-            cameFromEdge.put(e.startCell, next);
-          }
-
-        }
+      if (c.botEdge != null) {
+        c.botEdge.solid = this.grid.hasBottomWall(c.id);
       }
-
     }
+  }
 
+  // EFFECT: throws away the current search and uncolors the cells it colored
+  void resetSearch() {
+    for (int i = 0; i < this.colored; i++) {
+      this.paint(this.search.order[i], Cell.CELL_COLOR);
+    }
+    this.search = null;
+    this.colored = 0;
+    this.solution = null;
   }
 
-  // onKeyEvent method
+  // onKeyEvent method: d, b, a and t start a depth first, breadth first, A*
+  // or two-way breadth first search, up and down speed up or slow down the
+  // search, or the building while the maze is being built.
+  // With a viewport, h, j, k and l pan it a quarter of the window and + and -
+  // zoom it in and out
   public void onKeyEvent(String ke) {
-    if (ke.equals("d")) {
-      this.searchAlgo = 1;
+    int pan = Maze.PAN_KEYS.indexOf(ke);
+    if (this.viewport != null && ke.length() == 1 && pan >= 0) {
+      int[] columns = new int[] { -1, 0, 0, 1 };
+      int[] rows = new int[] { 0, 1, -1, 0 };
+      this.viewport.pan(columns[pan] * Math.max(1, this.viewport.columns() / 4),
+          rows[pan] * Math.max(1, this.viewport.rows() / 4));
+    }
+    if (this.viewport != null && (ke.equals("+") || ke.equals("="))) {
+      this.viewport.zoomBy(1);
+    }
+    if (this.viewport != null && ke.equals("-")) {
+      this.viewport.zoomBy(-1);
+    }
+
+    int algo = Maze.SEARCH_KEYS.indexOf(ke) + 1;
+    if (ke.length() == 1 && algo > 0) {
+      if (this.search != null) {
+        this.resetSearch();
+      }
+      this.searchAlgo = algo;
     }
 
-    if (ke.equals("b")) {
-      this.searchAlgo = 2;
+    if (ke.equals("up") && this.builder != null) {
+      // a batch never needs more than every edge
+      this.edgesPerTick = (int) Math.min(2L * this.edgesPerTick,
+          Math.max(1, this.builder.order.length));
+    }
+    else if (ke.equals("up")) {
+      // a search never expands more than every cell
+      this.cellsPerTick = (int) Math.min(2L * this.cellsPerTick,
+          Math.max(1L, (long) this.width * this.height));
+    }
+
+    if (ke.equals("down") && this.builder != null) {
+      this.edgesPerTick = Math.max(1, this.edgesPerTick / 2);
+    }
+    else if (ke.equals("down")) {
+      this.cellsPerTick = Math.max(1, this.cellsPerTick / 2);
+    }
+  }
+
+  // onMouseClicked method: with a viewport, moves the clicked cell to the
+  // middle of the window
+  public void onMouseClicked(Posn pos) {
+    if (this.viewport != null) {
+      this.viewport.centerOn(pos.x, pos.y);
     }
   }
 